@@ -9,6 +9,8 @@ public abstract class AIPlayer extends Player {
         registerAIPlayerType("RandomAI", RandomAI.class);
         registerAIPlayerType("GreedyAI", GreedyAI.class);
         registerAIPlayerType("MinMaxAI", MinMaxAI.class);
+        registerAIPlayerType("AlphaBetaAI", AlphaBetaAI.class);
+        registerAIPlayerType("MCTSAI", MCTSAI.class);
         // Add more AIPlayer subclasses here as needed
     }
     @Override
@@ -18,11 +20,35 @@ public abstract class AIPlayer extends Player {
 
     // Map of AI player types and their corresponding classes
     private static final Map<String, Class<? extends AIPlayer>> aiPlayerRegistry = new HashMap<>();
+    // Source of randomness for AIs that need it; seeded by tools that must reproduce games
+    protected Random random = new Random();
 
     public AIPlayer(boolean isPlayerOne) {
         super(isPlayerOne);
     }
 
+    /**
+     * Asks a {@link #makeMove} running on another thread, or announced with {@link #prepareMove()}, to return
+     * as soon as possible, because its move is no longer wanted. AIs that answer quickly can ignore it.
+     */
+    public void stopThinking() {
+    }
+
+    /**
+     * Announces a {@link #makeMove} call that is about to be made, possibly on another thread. From now on,
+     * {@link #stopThinking()} applies to that move even if it has not started yet, so code that hands moves
+     * to a worker thread should call this before handing the move over. AIs that answer quickly can ignore it.
+     */
+    public void prepareMove() {
+    }
+
+    /**
+     * Releases the threads and memory this AI holds between moves. The AI must not be used afterwards.
+     * AIs that hold nothing can ignore it.
+     */
+    public void close() {
+    }
+
     // Register AI player types
     protected static void registerAIPlayerType(String name, Class<? extends AIPlayer> aiPlayerClass) {
         aiPlayerRegistry.put(name, aiPlayerClass);
@@ -41,6 +67,15 @@ public abstract class AIPlayer extends Player {
         }
     }
 
+    /**
+     * Reseeds the random source of this AI so its choices can be reproduced.
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        random = new Random(seed);
+    }
+
     // Retrieve the list of registered AI player types
     public static List<String> getAIPlayerTypes() {
         return new ArrayList<>(aiPlayerRegistry.keySet());
@@ -0,0 +1,213 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An AI player backed by the {@link SearchEngine}: an iterative-deepening alpha-beta search that plays
+ * the best move it finds within a fixed budget per move.
+ * <p>
+ * The budget can be set with the {@code reversi.search.millis} (default 500) and
+ * {@code reversi.search.nodes} (default unlimited) system properties, or on the search returned by {@link #getSearch()}.
+ * The size of the transposition table is read from {@code reversi.hash.mb} (default 64) and the number of
+ * search threads from {@code reversi.search.threads} (default 1). Positions are scored by the evaluator chosen
+ * with {@code reversi.evaluator}, see {@link Evaluator#configured()}.
+ * <p>
+ * Once the number of empty squares drops to {@code reversi.endgame.empties} (default 14), the {@link EndgameSolver}
+ * takes over with half of the budget and plays perfectly; if it cannot finish in time, the search plays as usual,
+ * so a move never takes more than one and a half times the budget. The solver is created with the first endgame
+ * move, with a transposition table a quarter the size of the search's (at least 1 MB), so a player never holds
+ * more than one and a quarter times {@code reversi.hash.mb}.
+ * <p>
+ * With {@code reversi.book} naming an {@link OpeningBook} file, positions found in the book are played from it
+ * without searching.
+ * <p>
+ * The player can also ponder: search the position while the opponent thinks, see {@link #startPondering(GameState)}.
+ *
+ * @see AIPlayer
+ */
+public class AlphaBetaAI extends AIPlayer {
+    // Opening book named by reversi.book, shared by all players, or null
+    private static final OpeningBook BOOK = OpeningBook.configured();
+    private final ParallelSearch search = new ParallelSearch(Evaluator.configured(),
+            new TranspositionTable(Long.getLong("reversi.hash.mb", 64)),
+            Integer.getInteger("reversi.search.threads", 1));
+    // Exact solver for the last moves, created with the first endgame move, and the number of empty squares
+    // from which it is used
+    private EndgameSolver solver;
+    private final int endgameEmpties = Integer.getInteger("reversi.endgame.empties", 14);
+    // Statistics of the last search, kept for tools that want to report them
+    private SearchResult lastResult;
+    // Stop flag of the move being made or announced by prepareMove(); replaced by the next announced move
+    private final AtomicReference<AtomicBoolean> moveStop = new AtomicReference<>(new AtomicBoolean());
+    // Thread searching the opponent's position while they think and its stop flag, or null
+    private Thread ponderThread;
+    private AtomicBoolean ponderStop;
+
+    /**
+     * Constructs an {@code AlphaBetaAI} player.
+     *
+     * @param isPlayerOne a boolean indicating if this AI is the first player.
+     */
+    public AlphaBetaAI(boolean isPlayerOne) {
+        super(isPlayerOne);
+        search.setTimeLimit(Long.getLong("reversi.search.millis", 500));
+        search.setNodeLimit(Long.getLong("reversi.search.nodes", 0));
+    }
+
+    /**
+     * Searches a private snapshot of the game and returns the best move found.
+     *
+     * @param gameStatus the current state of the game.
+     * @return the chosen move.
+     */
+    @Override
+    public Move makeMove(PlayableLogic gameStatus) {
+        AtomicBoolean stop = moveStop.get();
+        try {
+            return makeMove(gameStatus, stop);
+        } finally {
+            // A stop request is used up by the move it stopped, so the next move runs even if it is not announced
+            if (stop.get()) moveStop.compareAndSet(stop, new AtomicBoolean());
+        }
+    }
+
+    private Move makeMove(PlayableLogic gameStatus, AtomicBoolean stop) {
+        stopPondering();
+        GameState root = GameState.of(gameStatus);
+        lastResult = null;
+        int bookMove = BOOK != null ? BOOK.lookup(root) : -1;
+        if (bookMove >= 0) {
+            lastResult = new SearchResult(bookMove, 0, 0, 0, 0);
+        } else if (root.empties() <= endgameEmpties) {
+            long millis = search.getTimeLimit();
+            long nodes = search.getNodeLimit();
+            if (solver == null) {
+                solver = new EndgameSolver(new TranspositionTable(endgameHashMegabytes(Long.getLong("reversi.hash.mb", 64))));
+            }
+            solver.setTimeLimit(millis > 0 ? Math.max(1, millis / 2) : 0);
+            solver.setNodeLimit(nodes > 0 ? Math.max(1, nodes / 2) : 0);
+            solver.setStopSignal(stop);
+            SearchResult solved = solver.solve(root);
+            if (solved != null) {
+                // Report the exact result on the search's scale: a won or lost game plus the disc margin
+                int margin = solved.score();
+                int score = margin > 0 ? SearchEngine.WIN + margin : margin < 0 ? -SearchEngine.WIN + margin : 0;
+                lastResult = new SearchResult(solved.move(), score, solved.depth(), solved.nodes(), solved.millis());
+            }
+        }
+        if (lastResult == null) lastResult = search.search(root, stop);
+        return GameState.toMove(lastResult.move(), this);
+    }
+
+    /**
+     * Stops the running or announced search; it returns the best move found so far. An endgame solve is abandoned.
+     */
+    @Override
+    public void stopThinking() {
+        moveStop.get().set(true);
+    }
+
+    /**
+     * Gives the announced move a stop flag of its own, so a stop that arrives before the move starts stops it.
+     */
+    @Override
+    public void prepareMove() {
+        moveStop.set(new AtomicBoolean());
+    }
+
+    /**
+     * Stops pondering, shuts down the helper threads of the search and drops the endgame solver.
+     */
+    @Override
+    public void close() {
+        stopPondering();
+        search.close();
+        solver = null;
+    }
+
+    /**
+     * Returns the size of the endgame solver's transposition table for a given search table size.
+     *
+     * @param hashMegabytes the size of the search's transposition table in megabytes.
+     * @return a quarter of it, at least 1 MB.
+     */
+    static long endgameHashMegabytes(long hashMegabytes) {
+        return Math.max(1, hashMegabytes / 4);
+    }
+
+    /**
+     * Starts searching a position where the opponent is to move, on a background thread and without a budget,
+     * until {@link #stopPondering()} or the next {@link #makeMove}. The results stay in the shared transposition
+     * table, so when the opponent has moved, the search of the new position finds the subtree of that move
+     * already explored and reaches a greater depth in the same time.
+     *
+     * @param position the position where the opponent is to move.
+     */
+    public synchronized void startPondering(GameState position) {
+        stopPondering();
+        if (position.isGameOver()) return;
+        long millis = search.getTimeLimit();
+        long nodes = search.getNodeLimit();
+        search.setTimeLimit(0);
+        search.setNodeLimit(0);
+        AtomicBoolean stop = new AtomicBoolean();
+        ponderStop = stop;
+        ponderThread = new Thread(() -> {
+            try {
+                search.search(position, stop);
+            } finally {
+                search.setTimeLimit(millis);
+                search.setNodeLimit(nodes);
+            }
+        }, "ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    /**
+     * Stops pondering and waits for the background search to end. Does nothing if the player is not pondering.
+     */
+    public synchronized void stopPondering() {
+        if (ponderThread == null) return;
+        // The flag belongs to this ponder search, so raising it stops the search even before it starts
+        ponderStop.set(true);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                ponderThread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        ponderThread = null;
+        ponderStop = null;
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Returns whether a background search of the opponent's position is running.
+     *
+     * @return {@code true} while pondering.
+     */
+    public synchronized boolean isPondering() {
+        return ponderThread != null && ponderThread.isAlive();
+    }
+
+    /**
+     * Returns the search, so its budget can be changed.
+     *
+     * @return the search of this player.
+     */
+    public ParallelSearch getSearch() {
+        return search;
+    }
+
+    /**
+     * Returns the result of the last search.
+     *
+     * @return the last search result, or {@code null} before the first move.
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+}
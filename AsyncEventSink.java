@@ -0,0 +1,206 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands game events to another sink on a background thread, so the games never wait for I/O.
+ * <p>
+ * Events are queued in a fixed ring buffer. The writer thread takes every queued event in one batch,
+ * passes them to the target sink and flushes it once per batch, so a burst of events costs one write.
+ * When the buffer is full the game waits for the writer instead of dropping events.
+ * <p>
+ * Logging never makes a game fail: if the target sink throws, the sink stops writing and drops the events
+ * queued then and later, counting them, and {@link #close()} reports the failure. Events that arrive after
+ * the sink is closed are dropped and counted in the same way.
+ */
+public class AsyncEventSink implements GameEventSink {
+    // Default number of events the ring buffer holds
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private final GameEventSink target;
+    private final GameEvent[] ring;
+    private final int mask;
+    // Sequence numbers of the next event to write and the next free slot; the buffer holds tail - head events
+    private long head;
+    private long tail;
+    // Sequence number of the last event the target has received and flushed
+    private long written;
+    private boolean closed;
+    // First exception thrown by the target, and the number of events that were not written
+    private RuntimeException failure;
+    private long lost;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private final Thread writer;
+
+    /**
+     * Creates an asynchronous sink with the default buffer size.
+     *
+     * @param target the sink the events are passed to; it is only called from the writer thread.
+     */
+    public AsyncEventSink(GameEventSink target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an asynchronous sink.
+     *
+     * @param target   the sink the events are passed to; it is only called from the writer thread.
+     * @param capacity the number of events the buffer holds, rounded up to a power of two.
+     */
+    public AsyncEventSink(GameEventSink target, int capacity) {
+        this.target = target;
+        ring = new GameEvent[Integer.highestOneBit(Math.max(2, capacity) * 2 - 1)];
+        mask = ring.length - 1;
+        writer = new Thread(this::drain, "event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public boolean accepts(boolean speculative) {
+        return target.accepts(speculative);
+    }
+
+    @Override
+    public void accept(GameEvent event) {
+        lock.lock();
+        try {
+            while (tail - head == ring.length && !closed && failure == null) notFull.awaitUninterruptibly();
+            if (closed || failure != null) {
+                lost++;
+                return;
+            }
+            ring[(int) (tail & mask)] = event;
+            if (tail++ == head) notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every event queued so far has been passed to the target sink and flushed,
+     * or until the sink is closed.
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            long last = tail;
+            while (written < last && !closed) drained.awaitUninterruptibly();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of events dropped so far because the target sink failed or this sink was closed.
+     *
+     * @return the number of lost events.
+     */
+    public long lostEvents() {
+        lock.lock();
+        try {
+            return lost;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes out the queued events, stops the writer thread and closes the target sink.
+     *
+     * @throws IllegalStateException if the target sink failed, with the number of lost events and the
+     *                               target's exception as cause; reported by the first close only.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            target.close();
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                if (failure == null) failure = e;
+            } finally {
+                lock.unlock();
+            }
+        }
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new IllegalStateException("Event sink failed, " + lost + " events lost", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean hasFailed() {
+        lock.lock();
+        try {
+            return failure != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        GameEvent[] batch = new GameEvent[ring.length];
+        while (true) {
+            int count;
+            lock.lock();
+            try {
+                while (head == tail && !closed) notEmpty.awaitUninterruptibly();
+                if (head == tail) return;
+                // Take everything queued in one go and free the slots before writing
+                count = (int) (tail - head);
+                for (int i = 0; i < count; i++, head++) {
+                    int slot = (int) (head & mask);
+                    batch[i] = ring[slot];
+                    ring[slot] = null;
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            RuntimeException error = null;
+            if (!hasFailed()) {
+                try {
+                    for (int i = 0; i < count; i++) target.accept(batch[i]);
+                    target.flush();
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            Arrays.fill(batch, 0, count, null);
+            lock.lock();
+            try {
+                // A batch the target failed on counts as lost as a whole, since it was not flushed; after a failure
+                // the writer keeps emptying the buffer, so games never wait for a dead target
+                if (error != null && failure == null) failure = error;
+                if (failure != null) lost += count;
+                written += count;
+                drained.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/**
+ * A compact 8x8 board representation that stores the game state in 64-bit masks.
+ * Square {@code row * 8 + col} maps to bit {@code row * 8 + col}, so iterating the bits of a mask
+ * from low to high visits the squares in the same row-major order as a nested row/column loop.
+ * <p>
+ * The board keeps one occupancy mask per player plus masks for the squares that hold
+ * unflippable and bomb discs. Legal moves and flip sets are computed with shift-and-mask
+ * sweeps in the eight directions instead of walking the board square by square.
+ * <p>
+ * The static methods work on raw masks and are shared by every component that needs the rules
+ * of the game; the instance methods wrap them around a mutable board.
+ */
+public class BitBoard {
+    // The board size supported by the bitboard representation
+    public static final int SIZE = 8;
+    // All bits in the first column, used to cut off wrap-around when shifting east
+    private static final long FILE_A = 0x0101010101010101L;
+    // All bits in the last column, used to cut off wrap-around when shifting west
+    private static final long FILE_H = 0x8080808080808080L;
+    // Shift amount per direction: E, W, S, N, SE, SW, NE, NW
+    private static final int[] SHIFTS = {1, -1, 8, -8, 9, 7, -7, -9};
+    // Mask applied after each shift to drop the bits that wrapped to the other side of the board
+    private static final long[] MASKS = {~FILE_A, ~FILE_H, -1L, -1L, ~FILE_A, ~FILE_H, ~FILE_A, ~FILE_H};
+    // The up to eight squares around each square, used to resolve bomb detonations
+    private static final long[] KING = new long[SIZE * SIZE];
+
+    static {
+        for (int square = 0; square < KING.length; square++) {
+            KING[square] = neighbours(bit(square));
+        }
+    }
+
+    // Occupancy masks of the two players
+    private long player1;
+    private long player2;
+    // Squares holding bomb discs (of either player)
+    private long bombs;
+    // Squares holding unflippable discs (of either player)
+    private long unflippables;
+
+    /**
+     * Creates an empty board.
+     */
+    public BitBoard() {
+    }
+
+    /**
+     * Clears the board and places the four starting discs.
+     * Player 1 starts on (3,3) and (4,4), player 2 on (3,4) and (4,3).
+     */
+    public void reset() {
+        player1 = bit(square(3, 3)) | bit(square(4, 4));
+        player2 = bit(square(3, 4)) | bit(square(4, 3));
+        bombs = 0;
+        unflippables = 0;
+    }
+
+    /**
+     * Converts a row and column into a square index.
+     *
+     * @param row the row of the square.
+     * @param col the column of the square.
+     * @return the square index in the range [0, 64).
+     */
+    public static int square(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    /**
+     * Returns the mask containing only the given square.
+     *
+     * @param square the square index.
+     * @return a mask with a single bit set.
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Shifts every bit of the mask one step in the given direction, dropping bits that leave the board.
+     *
+     * @param mask      the mask to shift.
+     * @param direction the direction index in the range [0, 8).
+     * @return the shifted mask.
+     */
+    static long shift(long mask, int direction) {
+        int s = SHIFTS[direction];
+        return (s > 0 ? mask << s : mask >>> -s) & MASKS[direction];
+    }
+
+    /**
+     * Returns all squares adjacent (including diagonally) to at least one square of the mask.
+     *
+     * @param mask the mask to grow.
+     * @return the neighbouring squares.
+     */
+    static long neighbours(long mask) {
+        long result = 0;
+        for (int d = 0; d < SHIFTS.length; d++) {
+            result |= shift(mask, d);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the legal move squares for a player.
+     * A move is legal when, in at least one direction, it closes a line of opponent discs that contains
+     * at least one flippable disc. Opponent unflippable discs inside the line do not break it.
+     *
+     * @param own          the discs of the player to move.
+     * @param opp          the discs of the opponent.
+     * @param unflippables the squares holding unflippable discs.
+     * @return a mask of the legal move squares.
+     */
+    public static long legalMoves(long own, long opp, long unflippables) {
+        long empty = ~(own | opp);
+        long flippable = opp & ~unflippables;
+        long locked = opp & unflippables;
+        long moves = 0;
+        for (int d = 0; d < SHIFTS.length; d++) {
+            long line = shift(own, d) & opp;
+            // Lines that already passed a flippable opponent disc, and lines made only of unflippable ones
+            long seen = line & flippable;
+            long pending = line & locked;
+            // A line of opponent discs is at most six squares long
+            for (int i = 0; i < SIZE - 2; i++) {
+                long nextSeen = shift(seen, d);
+                long nextPending = shift(pending, d) & opp;
+                moves |= nextSeen & empty;
+                seen = (nextSeen & opp) | (nextPending & flippable);
+                pending = nextPending & locked;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Computes the squares that would be flipped if a player placed a disc on the given square,
+     * including every disc reached by chained bomb detonations.
+     *
+     * @param square       the square to play on.
+     * @param own          the discs of the player to move.
+     * @param opp          the discs of the opponent.
+     * @param unflippables the squares holding unflippable discs.
+     * @param bombs        the squares holding bomb discs.
+     * @return a mask of the flipped squares, or 0 if the move is not legal.
+     */
+    public static long flips(int square, long own, long opp, long unflippables, long bombs) {
+        long move = bit(square);
+        if (((own | opp) & move) != 0) return 0;
+        long flippable = opp & ~unflippables;
+        long flips = 0;
+        // Sweep each direction, collecting the run of opponent discs closed by one of our own discs
+        for (int d = 0; d < SHIFTS.length; d++) {
+            long run = 0;
+            long x = shift(move, d);
+            while ((x & opp) != 0) {
+                run |= x;
+                x = shift(x, d);
+            }
+            if ((x & own) != 0) {
+                flips |= run & flippable;
+            }
+        }
+        return flips | bombChain(flips & bombs, flippable, bombs);
+    }
+
+    /**
+     * Resolves chained bomb detonations as a flood-fill.
+     * Every detonated bomb flips its flippable opponent neighbours, and bombs among them detonate in turn;
+     * each bomb is taken from the pending mask once and its neighbourhood is a single table lookup.
+     *
+     * @param detonated the bombs that are being flipped.
+     * @param flippable the opponent discs that may be flipped.
+     * @param bombs     the squares holding bomb discs.
+     * @return the squares flipped by the detonations.
+     */
+    static long bombChain(long detonated, long flippable, long bombs) {
+        long flipped = 0;
+        long visited = 0;
+        long pending = detonated;
+        while (pending != 0) {
+            int square = Long.numberOfTrailingZeros(pending);
+            visited |= bit(square);
+            long hit = KING[square] & flippable;
+            flipped |= hit;
+            pending = (pending | (hit & bombs)) & ~visited;
+        }
+        return flipped;
+    }
+
+    /**
+     * Returns the discs of one player.
+     *
+     * @param playerOne {@code true} for the first player, {@code false} for the second.
+     * @return the occupancy mask of the player.
+     */
+    public long discs(boolean playerOne) {
+        return playerOne ? player1 : player2;
+    }
+
+    /**
+     * Returns the squares holding bomb discs.
+     *
+     * @return the bomb mask.
+     */
+    public long bombs() {
+        return bombs;
+    }
+
+    /**
+     * Returns the squares holding unflippable discs.
+     *
+     * @return the unflippable mask.
+     */
+    public long unflippables() {
+        return unflippables;
+    }
+
+    /**
+     * Returns the empty squares of the board.
+     *
+     * @return the mask of empty squares.
+     */
+    public long empty() {
+        return ~(player1 | player2);
+    }
+
+    /**
+     * Computes the legal move squares of a player on this board.
+     *
+     * @param playerOne {@code true} for the first player, {@code false} for the second.
+     * @return a mask of the legal move squares.
+     */
+    public long legalMoves(boolean playerOne) {
+        return legalMoves(discs(playerOne), discs(!playerOne), unflippables);
+    }
+
+    /**
+     * Computes the squares a player would flip by placing a disc on the given square.
+     *
+     * @param square    the square to play on.
+     * @param playerOne {@code true} for the first player, {@code false} for the second.
+     * @return a mask of the flipped squares, or 0 if the move is not legal.
+     */
+    public long flips(int square, boolean playerOne) {
+        return flips(square, discs(playerOne), discs(!playerOne), unflippables, bombs);
+    }
+
+    /**
+     * Places a disc and flips the given squares to the player who placed it.
+     *
+     * @param square    the square to place the disc on.
+     * @param kind      the kind of the placed disc.
+     * @param playerOne {@code true} if the first player places the disc.
+     * @param flips     the squares to flip, as returned by {@link #flips(int, boolean)}.
+     */
+    public void play(int square, DiscKind kind, boolean playerOne, long flips) {
+        long placed = bit(square) | flips;
+        if (playerOne) {
+            player1 |= placed;
+            player2 &= ~flips;
+        } else {
+            player2 |= placed;
+            player1 &= ~flips;
+        }
+        if (kind == DiscKind.BOMB) bombs |= bit(square);
+        if (kind == DiscKind.UNFLIPPABLE) unflippables |= bit(square);
+    }
+
+    /**
+     * Reverts a move made with {@link #play(int, DiscKind, boolean, long)}.
+     * Removes the placed disc and gives the flipped squares back to the opponent.
+     *
+     * @param square    the square the disc was placed on.
+     * @param playerOne {@code true} if the first player placed the disc.
+     * @param flips     the squares that were flipped by the move.
+     */
+    public void undo(int square, boolean playerOne, long flips) {
+        long placed = bit(square);
+        if (playerOne) {
+            player1 &= ~(placed | flips);
+            player2 |= flips;
+        } else {
+            player2 &= ~(placed | flips);
+            player1 |= flips;
+        }
+        bombs &= ~placed;
+        unflippables &= ~placed;
+    }
+}
@@ -4,7 +4,7 @@ public class BombDisc implements Disc{
      * The { BombDisc} is associated with a player and can have unique effects when played.
      * It is visually represented by a bomb symbol ("💣").
      */
-    private Player player;
+    private final Player player;
     public BombDisc(Player player){
         this.player=player;
     }
@@ -13,13 +13,25 @@ public class BombDisc implements Disc{
         return this.player;
     }
 
+    /**
+     * Discs are immutable and shared by every square they are on; the board swaps in the other player's disc instead.
+     *
+     * @throws UnsupportedOperationException always.
+     * @deprecated use the other player's disc, from {@link Player#disc(DiscKind)}.
+     */
+    @Deprecated
     @Override
     public void setOwner(Player player) {
-        this.player=player;
+        throw new UnsupportedOperationException("Discs are immutable");
     }
 
     @Override
     public String getType() {
         return "💣";
     }
+
+    @Override
+    public DiscKind kind() {
+        return DiscKind.BOMB;
+    }
 }
@@ -0,0 +1,41 @@
+import java.io.PrintStream;
+
+/**
+ * Prints game events as readable messages, one line per event.
+ */
+public class ConsoleEventSink implements GameEventSink {
+    private final PrintStream out;
+
+    /**
+     * Creates a sink printing to the given stream.
+     *
+     * @param out the stream, usually {@code System.out}.
+     */
+    public ConsoleEventSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void accept(GameEvent event) {
+        String player = event.playerOne() ? "Player 1" : "Player 2";
+        String place = event.kind() == null ? "" : event.kind().symbol() + " in (" + event.row() + "," + event.col() + ")";
+        String message = switch (event.type()) {
+            case PLACE -> player + " placed a " + place;
+            case FLIP -> player + " flipped the " + place;
+            case UNDO -> event.square() < 0 ? "Undoing last move\n\tNo previous move available to undo."
+                    : "Undoing last move\n\tUndo: removing " + event.kind().symbol() + " from (" + event.row() + "," + event.col() + ")";
+            case FLIP_BACK -> "\tUndo: flipping back " + place;
+            case REDO -> event.square() < 0 ? "Redoing last move\n\tNo undone move available to redo." : "Redoing last move";
+            case GAME_OVER -> event.playerOne()
+                    ? "Player 1 wins with " + event.discs1() + " discs! Player 2 had " + event.discs2() + " discs."
+                    : "Player 2 wins with " + event.discs2() + " discs! Player 1 had " + event.discs1() + " discs.";
+        };
+        // println locks the stream, so lines of games on different threads do not interleave
+        out.println(message);
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+}
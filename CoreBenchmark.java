@@ -0,0 +1,231 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Micro-benchmarks for the game core and the AI players.
+ * <p>
+ * Each benchmark is warmed up and then run for a fixed time on a single thread. The report gives the
+ * average time per operation, the throughput and the bytes allocated per operation (measured per thread,
+ * like JMH's {@code -prof gc}), so changes to the core can be backed by reproducible numbers.
+ * <p>
+ * The positions are built by seeded random games, so every run measures the same boards:
+ * an opening, a middle game and an endgame position, plus a bomb-heavy position with a chain of bombs.
+ * <p>
+ * Usage: {@code java CoreBenchmark [name filter]}. The warm-up and measurement times can be set with the
+ * {@code bench.warmup.millis} (default 1000) and {@code bench.measure.millis} (default 3000) system properties.
+ * Searching AIs get a fixed node budget ({@code reversi.search.nodes}, default 100000) instead of a time budget,
+ * so their numbers do not depend on the clock. Every AI move is made by a new AI, with a 16 MB transposition table
+ * by default ({@code reversi.hash.mb}); the AI is created before the clock starts and closed after it stops, so
+ * only the move is measured.
+ */
+public class CoreBenchmark {
+    // Consumes benchmark results so the JIT cannot drop the measured work
+    private static volatile int sink;
+
+    private final long warmupMillis = Long.getLong("bench.warmup.millis", 1000);
+    private final long measureMillis = Long.getLong("bench.measure.millis", 3000);
+    private final PrintStream out;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public CoreBenchmark(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Warms up and measures one benchmark, then prints its line of the report.
+     *
+     * @param name      the benchmark name.
+     * @param operation the operation to measure; its result is consumed so it cannot be optimized away.
+     */
+    void measure(String name, Supplier<Object> operation) {
+        long end = System.nanoTime() + warmupMillis * 1_000_000;
+        while (System.nanoTime() < end) consume(operation.get());
+        long threadId = Thread.currentThread().threadId();
+        long operations = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        end = start + measureMillis * 1_000_000;
+        long now;
+        // Check the clock only every few operations so it does not dominate fast benchmarks
+        do {
+            for (int i = 0; i < 16; i++) consume(operation.get());
+            operations += 16;
+            now = System.nanoTime();
+        } while (now < end);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        report(name, now - start, allocated, operations);
+    }
+
+    /**
+     * Warms up and measures an operation that needs a new subject every time, then prints its line of the report.
+     * Only the operation is timed and counted for allocations, not the creation or release of its subject.
+     *
+     * @param name      the benchmark name.
+     * @param setup     creates the subject of one operation.
+     * @param operation the operation to measure; its result is consumed so it cannot be optimized away.
+     * @param teardown  releases the subject after the operation.
+     */
+    <T> void measure(String name, Supplier<T> setup, Function<T, Object> operation, Consumer<T> teardown) {
+        long end = System.nanoTime() + warmupMillis * 1_000_000;
+        while (System.nanoTime() < end) consume(measureOnce(setup, operation, teardown, new long[2]));
+        // Time and bytes allocated by the operations alone
+        long[] totals = new long[2];
+        long operations = 0;
+        end = System.nanoTime() + measureMillis * 1_000_000;
+        do {
+            consume(measureOnce(setup, operation, teardown, totals));
+            operations++;
+        } while (System.nanoTime() < end);
+        report(name, totals[0], totals[1], operations);
+    }
+
+    private <T> Object measureOnce(Supplier<T> setup, Function<T, Object> operation, Consumer<T> teardown, long[] totals) {
+        T subject = setup.get();
+        try {
+            long threadId = Thread.currentThread().threadId();
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            Object result = operation.apply(subject);
+            totals[0] += System.nanoTime() - start;
+            totals[1] += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            return result;
+        } finally {
+            teardown.accept(subject);
+        }
+    }
+
+    private void report(String name, long nanos, long allocated, long operations) {
+        double nanosPerOperation = (double) nanos / operations;
+        out.printf(Locale.ROOT, "%-48s %14.1f ns/op %14.0f ops/s %12.1f B/op%n",
+                name, nanosPerOperation, 1e9 / nanosPerOperation, (double) allocated / operations);
+    }
+
+    private static void consume(Object value) {
+        sink += value == null ? 0 : value.hashCode();
+    }
+
+    /**
+     * Plays a seeded random game up to the given number of moves.
+     *
+     * @param seed        the seed of the random game.
+     * @param moves       the number of moves to play.
+     * @param preferBombs whether to place bombs while any are left, to build bomb-heavy positions.
+     * @return the game after the moves, or earlier if it ended.
+     */
+    static GameLogic position(long seed, int moves, boolean preferBombs) {
+        Random random = new Random(seed);
+        Player player1 = new HumanPlayer(true);
+        Player player2 = new HumanPlayer(false);
+        GameLogic game = new GameLogic();
+        game.setPlayers(player1, player2);
+        game.reset();
+        for (int i = 0; i < moves; i++) {
+            List<Position> valid = game.ValidMoves();
+            if (valid.isEmpty()) break;
+            Player current = game.isFirstPlayerTurn() ? player1 : player2;
+            Position position = valid.get(random.nextInt(valid.size()));
+            Disc disc = current.disc(preferBombs && current.getNumber_of_bombs() > 0 ? DiscKind.BOMB : DiscKind.SIMPLE);
+            game.locate_disc(position, disc);
+        }
+        return game;
+    }
+
+    /**
+     * Finds a bomb-heavy position where the player to move can detonate a chain of at least two bombs.
+     *
+     * @return the game and the position of the first bomb of the chain.
+     */
+    static Object[] bombChainPosition() {
+        for (long seed = 1; ; seed++) {
+            for (int moves = 12; moves <= 40; moves += 2) {
+                GameLogic game = position(seed, moves, true);
+                GameState state = game.snapshot();
+                long ownBombs = state.bombs() & state.discs(!state.isPlayerOneToMove());
+                for (long bombs = ownBombs; bombs != 0; bombs &= bombs - 1) {
+                    int square = Long.numberOfTrailingZeros(bombs);
+                    Position bomb = Position.of(square);
+                    List<Position> chain = game.bombFlip(bomb);
+                    long chainedBombs = 0;
+                    for (Position p : chain) chainedBombs |= BitBoard.bit(p.square()) & state.bombs();
+                    if (Long.bitCount(chainedBombs) >= 2) return new Object[]{game, bomb};
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs every benchmark whose name contains the filter.
+     *
+     * @param filter the name filter; empty to run all benchmarks.
+     */
+    void run(String filter) {
+        List<String> names = new ArrayList<>();
+        // Each benchmark is measured under its name
+        List<Consumer<String>> benchmarks = new ArrayList<>();
+        String[] phases = {"opening", "midgame", "endgame"};
+        GameLogic[] games = {position(42, 8, false), position(42, 26, false), position(42, 48, false)};
+        for (int i = 0; i < games.length; i++) {
+            GameLogic game = games[i];
+            // The measured moves are played and undone like a search would
+            game.setSpeculative(true);
+            List<Position> valid = game.ValidMoves();
+            Position probe = valid.getFirst();
+            Disc disc = game.getCurrentPlayer().disc(DiscKind.SIMPLE);
+            names.add("GameLogic.ValidMoves/" + phases[i]);
+            benchmarks.add(name -> measure(name, game::ValidMoves));
+            names.add("GameLogic.isValidPos/" + phases[i]);
+            benchmarks.add(name -> measure(name, () -> game.isValidPos(probe)));
+            names.add("GameLogic.countFlips(all moves)/" + phases[i]);
+            benchmarks.add(name -> measure(name, () -> {
+                int total = 0;
+                for (Position p : valid) total += game.countFlips(p);
+                return total;
+            }));
+            names.add("GameLogic.locate_disc+undoLastMove/" + phases[i]);
+            benchmarks.add(name -> measure(name, () -> {
+                game.locate_disc(probe, disc);
+                game.undoLastMove();
+                return disc;
+            }));
+        }
+        Object[] chain = bombChainPosition();
+        GameLogic bombGame = (GameLogic) chain[0];
+        Position bomb = (Position) chain[1];
+        names.add("GameLogic.bombFlip/chain");
+        benchmarks.add(name -> measure(name, () -> bombGame.bombFlip(bomb)));
+        for (String type : AIPlayer.getAIPlayerTypes()) {
+            for (int i = 0; i < games.length; i++) {
+                GameLogic game = games[i];
+                long seed = i;
+                names.add(type + ".makeMove/" + phases[i]);
+                // A new AI every time, so no search starts from the table, tree or move statistics of the last one
+                benchmarks.add(name -> measure(name, () -> {
+                    AIPlayer ai = AIPlayer.createAIPlayer(type, game.isFirstPlayerTurn());
+                    ai.setSeed(seed);
+                    return ai;
+                }, ai -> ai.makeMove(game), AIPlayer::close));
+            }
+        }
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).contains(filter)) benchmarks.get(i).accept(names.get(i));
+        }
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("reversi.search.nodes") == null) {
+            System.setProperty("reversi.search.millis", "0");
+            System.setProperty("reversi.search.nodes", "100000");
+        }
+        if (System.getProperty("reversi.hash.mb") == null) System.setProperty("reversi.hash.mb", "16");
+        AIPlayer.registerAllAIPlayers();
+        new CoreBenchmark(System.out).run(args.length > 0 ? args[0] : "");
+    }
+}
@@ -13,8 +13,13 @@ public interface Disc {
 
     /**
      * Set the player who owns the Disc.
+     * Not supported by the discs of this game: they are immutable and shared, and a disc changes sides by being
+     * replaced on the board with the other player's disc.
      *
+     * @throws UnsupportedOperationException always, for the discs of this game.
+     * @deprecated use the other player's disc, from {@link Player#disc(DiscKind)}.
      */
+    @Deprecated
     void setOwner(Player player);
 
     /**
@@ -26,4 +31,13 @@ public interface Disc {
      */
     String getType();
 
+    /**
+     * Get the kind of the disc, for dispatching without comparing symbols.
+     *
+     * @return the kind matching {@link #getType()}.
+     */
+    default DiscKind kind() {
+        return DiscKind.fromSymbol(getType());
+    }
+
 }
\ No newline at end of file
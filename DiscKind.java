@@ -0,0 +1,39 @@
+/**
+ * The kinds of discs that can be placed on the board.
+ * Each kind keeps the symbol returned by {@link Disc#getType()} so the engine can map
+ * between the GUI-facing disc objects and its own compact representation.
+ */
+public enum DiscKind {
+    SIMPLE("⬤"),
+    UNFLIPPABLE("⭕"),
+    BOMB("💣");
+
+    private final String symbol;
+
+    DiscKind(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns the symbol used by {@link Disc#getType()} for this kind.
+     *
+     * @return the disc symbol.
+     */
+    public String symbol() {
+        return symbol;
+    }
+
+    /**
+     * Maps a disc symbol back to its kind.
+     *
+     * @param symbol the symbol returned by {@link Disc#getType()}.
+     * @return the matching kind.
+     * @throws IllegalArgumentException if the symbol is unknown.
+     */
+    public static DiscKind fromSymbol(String symbol) {
+        for (DiscKind kind : values()) {
+            if (kind.symbol.equals(symbol)) return kind;
+        }
+        throw new IllegalArgumentException("Unknown disc type: " + symbol);
+    }
+}
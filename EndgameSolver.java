@@ -0,0 +1,304 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Solves endgames exactly: searches every line to the end of the game and returns the best move
+ * with the exact final disc difference under perfect play by both sides.
+ * <p>
+ * Bombs and unflippable discs are modeled like in the rest of the engine: every square is tried with each
+ * disc kind the player to move still has, and the remaining inventories are part of the position, so
+ * the result is exact for the position as it is. As in {@link SearchEngine}, the game ends when the player
+ * to move has no legal move and is scored by the disc difference.
+ * <p>
+ * Moves are searched fastest-first: the moves that leave the opponent the fewest replies come first,
+ * which proves cutoffs with the smallest trees. Ties go to moves in board regions (quadrants) with an odd number
+ * of empty squares, so the player to move tends to get the last move of each region, and then to simple discs.
+ * Results of positions with enough empty squares are kept in a private transposition table.
+ * <p>
+ * Like the search engine, the solver has a time and a node budget and can be stopped from another thread;
+ * a solve that does not finish returns {@code null}.
+ * <p>
+ * Usage: {@code java EndgameSolver [moves...] [--wld]}, with moves written as for {@link Perft}; prints the exact
+ * result of the position after the moves, or only win, loss or draw with {@code --wld}.
+ */
+public class EndgameSolver {
+    // Positions with at least this many empty squares are stored in the transposition table
+    private static final int TABLE_MIN_EMPTIES = 6;
+    // Positions with at least this many empty squares order their moves by the opponent's mobility
+    private static final int FASTEST_FIRST_MIN_EMPTIES = 5;
+    // How many nodes are visited between two checks of the clock
+    private static final int CHECK_INTERVAL = 1024;
+    // The four 4x4 quadrants of the board, the regions used for parity
+    private static final long[] QUADRANTS = {
+            0x0F0F0F0FL, 0xF0F0F0F0L, 0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+    };
+
+    private final TranspositionTable table;
+    // Search budget: a time limit in milliseconds and a node limit, 0 meaning unlimited
+    private long timeLimit;
+    private long nodeLimit;
+    // Optional flag shared with other searches; raising it stops the solver
+    private AtomicBoolean stopSignal;
+    // State of the running solve
+    private volatile boolean stopped;
+    private long nodes;
+    private long deadline;
+    // Move lists, children and ordering keys for every ply, allocated once
+    private final int[][] moveLists = new int[SearchEngine.MAX_PLY + 1][SearchEngine.MAX_MOVES];
+    private final GameState[][] children = new GameState[SearchEngine.MAX_PLY + 1][SearchEngine.MAX_MOVES];
+    private final int[][] keys = new int[SearchEngine.MAX_PLY + 1][SearchEngine.MAX_MOVES];
+
+    /**
+     * Creates a solver with its own 16 MB transposition table.
+     */
+    public EndgameSolver() {
+        this(new TranspositionTable(16));
+    }
+
+    /**
+     * Creates a solver that stores results in the given table. The scores stored are final disc differences,
+     * not search scores, so the table must not be shared with a {@link SearchEngine}.
+     *
+     * @param table the transposition table.
+     */
+    public EndgameSolver(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Sets the time budget of each solve.
+     *
+     * @param millis the budget in milliseconds, or 0 for no time limit.
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimit = millis;
+    }
+
+    /**
+     * Sets the node budget of each solve.
+     *
+     * @param nodes the maximum number of positions to visit, or 0 for no node limit.
+     */
+    public void setNodeLimit(long nodes) {
+        this.nodeLimit = nodes;
+    }
+
+    /**
+     * Shares a stop flag with other searches. The solver stops once the flag is raised,
+     * whether that happens before or during the solve.
+     *
+     * @param signal the shared flag, or {@code null} to stop only through {@link #stop()}.
+     */
+    void setStopSignal(AtomicBoolean signal) {
+        this.stopSignal = signal;
+    }
+
+    /**
+     * Asks a running solve to stop as soon as possible; it then returns {@code null}.
+     * A solve that has not started yet is not affected; stop it through its stop signal instead.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Finds the best move and the exact final disc difference of a position.
+     *
+     * @param root the position; the player to move must have a legal move.
+     * @return the best move, with the final disc difference from the point of view of the player to move as score
+     * and the number of empty squares as depth, or {@code null} if the budget ran out first.
+     * @throws IllegalStateException if the player to move has no legal move.
+     */
+    public SearchResult solve(GameState root) {
+        return solve(root, -BitBoard.SIZE * BitBoard.SIZE - 1, BitBoard.SIZE * BitBoard.SIZE + 1);
+    }
+
+    /**
+     * Finds whether a position is won, lost or drawn with perfect play, and a move that achieves it.
+     * This is faster than {@link #solve(GameState)}, which also finds the exact margin.
+     *
+     * @param root the position; the player to move must have a legal move.
+     * @return the best move, with 1 for a win, 0 for a draw or -1 for a loss as score, or {@code null} if the
+     * budget ran out first.
+     * @throws IllegalStateException if the player to move has no legal move.
+     */
+    public SearchResult solveWinLossDraw(GameState root) {
+        SearchResult result = solve(root, -1, 1);
+        if (result == null) return null;
+        return new SearchResult(result.move(), Integer.signum(result.score()), result.depth(), result.nodes(), result.millis());
+    }
+
+    private SearchResult solve(GameState root, int alpha, int beta) {
+        long start = System.nanoTime();
+        // A stop signal raised before the solve started still stops it
+        stopped = stopSignal != null && stopSignal.get();
+        nodes = 0;
+        deadline = timeLimit > 0 ? start + timeLimit * 1_000_000 : Long.MAX_VALUE;
+        int[] moves = moveLists[0];
+        int count = root.legalMoves(moves);
+        if (count == 0) throw new IllegalStateException("No valid moves available");
+        table.newSearch();
+        long entry = table.probe(root.hash());
+        order(root, moves, count, entry != 0 ? TranspositionTable.move(entry) : -1, 0);
+        GameState[] next = children[0];
+        int bestMove = moves[0];
+        int best = -BitBoard.SIZE * BitBoard.SIZE - 1;
+        for (int i = 0; i < count; i++) {
+            int score;
+            if (i == 0) {
+                score = -solve(next[i], -beta, -alpha, 1);
+            } else {
+                score = -solve(next[i], -alpha - 1, -alpha, 1);
+                if (score > alpha && score < beta && !stopped) score = -solve(next[i], -beta, -alpha, 1);
+            }
+            if (stopped) return null;
+            if (score > best) {
+                best = score;
+                bestMove = moves[i];
+                if (score > alpha) alpha = score;
+                if (alpha >= beta) break;
+            }
+        }
+        return new SearchResult(bestMove, best, root.empties(), nodes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Negamax search to the end of the game with alpha-beta pruning and principal-variation search.
+     *
+     * @return the final disc difference from the point of view of the player to move, or a bound of it
+     * outside the window.
+     */
+    private int solve(GameState state, int alpha, int beta, int ply) {
+        if (++nodes % CHECK_INTERVAL == 0) checkLimits();
+        if (stopped) return 0;
+        int[] moves = moveLists[ply];
+        int count = state.legalMoves(moves);
+        if (count == 0) return state.discDifference();
+        int empties = state.empties();
+        long key = state.hash();
+        long entry = 0;
+        if (empties >= TABLE_MIN_EMPTIES) {
+            entry = table.probe(key);
+            if (entry != 0) {
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+        order(state, moves, count, entry != 0 ? TranspositionTable.move(entry) : -1, ply);
+        GameState[] next = children[ply];
+        int originalAlpha = alpha;
+        int best = -BitBoard.SIZE * BitBoard.SIZE - 1;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            int score;
+            if (i == 0) {
+                score = -solve(next[i], -beta, -alpha, ply + 1);
+            } else {
+                // Prove the move is no better than the current best with a null window, re-search only if it is
+                score = -solve(next[i], -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta && !stopped) score = -solve(next[i], -beta, -alpha, ply + 1);
+            }
+            if (stopped) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = moves[i];
+                if (score > alpha) alpha = score;
+                if (alpha >= beta) break;
+            }
+        }
+        if (empties >= TABLE_MIN_EMPTIES) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(key, bestMove, best, empties, bound);
+        }
+        return best;
+    }
+
+    /**
+     * Plays every move into the children of the ply and sorts moves and children together:
+     * the stored best move first, then fastest-first with parity and disc kind as tie-breaks.
+     */
+    private void order(GameState state, int[] moves, int count, int hashMove, int ply) {
+        GameState[] next = children[ply];
+        int[] key = keys[ply];
+        long empty = state.empty();
+        boolean fastestFirst = Long.bitCount(empty) >= FASTEST_FIRST_MIN_EMPTIES;
+        // Regions with an odd number of empty squares
+        long oddRegions = 0;
+        for (long quadrant : QUADRANTS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) oddRegions |= quadrant;
+        }
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int square = GameState.square(move);
+            next[i] = state.play(move);
+            int score = GameState.kind(move).ordinal();
+            if ((oddRegions & BitBoard.bit(square)) == 0) score += 4;
+            if (fastestFirst) score += Long.bitCount(next[i].legalSquares()) * 8;
+            key[i] = move == hashMove ? Integer.MIN_VALUE : score;
+        }
+        // Insertion sort: the lists are short and often nearly sorted
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            GameState child = next[i];
+            int k = key[i];
+            int j = i - 1;
+            while (j >= 0 && key[j] > k) {
+                moves[j + 1] = moves[j];
+                next[j + 1] = next[j];
+                key[j + 1] = key[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            next[j + 1] = child;
+            key[j + 1] = k;
+        }
+    }
+
+    /**
+     * Stops the solve once the time or node budget is spent, or when the shared stop flag is raised.
+     */
+    private void checkLimits() {
+        if ((nodeLimit > 0 && nodes >= nodeLimit) || System.nanoTime() >= deadline
+                || (stopSignal != null && stopSignal.get())) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Returns the number of positions visited by the last solve.
+     *
+     * @return the node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        boolean winLossDraw = false;
+        List<Integer> moves = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--wld")) winLossDraw = true;
+            else moves.add(Perft.parseMove(arg));
+        }
+        GameState root = Perft.replay(moves).snapshot();
+        if (root.isGameOver()) {
+            System.out.println("Game over, disc difference " + root.discDifference() + " for the player to move");
+            return;
+        }
+        EndgameSolver solver = new EndgameSolver(new TranspositionTable(Long.getLong("reversi.hash.mb", 64)));
+        SearchResult result = winLossDraw ? solver.solveWinLossDraw(root) : solver.solve(root);
+        String outcome = result.score() > 0 ? "win" : result.score() < 0 ? "loss" : "draw";
+        System.out.printf(Locale.ROOT, "%d empties, player %d to move: %s%s with %s, %d nodes in %d ms%n",
+                root.empties(), root.isPlayerOneToMove() ? 1 : 2, outcome,
+                winLossDraw ? "" : String.format(Locale.ROOT, " by %+d", result.score()),
+                Perft.formatMove(result.move()), result.nodes(), result.millis());
+    }
+}
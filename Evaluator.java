@@ -0,0 +1,31 @@
+/**
+ * Scores a position for the search engine.
+ * Implementations must be side-effect free so several search threads can share one instance.
+ */
+public interface Evaluator {
+
+    /**
+     * Evaluates a position that is not over.
+     *
+     * @param state the position to evaluate.
+     * @return the score from the point of view of the player to move; higher is better for that player.
+     */
+    int evaluate(GameState state);
+
+    /**
+     * Returns the evaluator selected by the {@code reversi.evaluator} system property: {@code pattern} for the
+     * {@link PatternEvaluator}, or {@code heuristic} (the default) for the {@link HeuristicEvaluator}. Setting
+     * {@code reversi.weights} to a pattern weights file also selects the pattern evaluator.
+     *
+     * @return the configured evaluator.
+     * @throws IllegalArgumentException if the property names no known evaluator.
+     */
+    static Evaluator configured() {
+        String name = System.getProperty("reversi.evaluator", System.getProperty("reversi.weights") != null ? "pattern" : "heuristic");
+        return switch (name) {
+            case "pattern" -> PatternEvaluator.configured();
+            case "heuristic" -> new HeuristicEvaluator();
+            default -> throw new IllegalArgumentException("Unknown evaluator: " + name);
+        };
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The immutable outcome of probing a move: which discs it would flip and whether it may be played.
+ * A {@code FlipResult} is a snapshot taken when the probe ran; it does not change if the game moves on,
+ * so it can be handed to other threads or kept while other moves are probed.
+ *
+ * @see GameLogic#probe(Position, DiscKind)
+ */
+public final class FlipResult {
+    private final Position position;
+    private final DiscKind kind;
+    // Squares that would be flipped, including the ones reached by bomb chains
+    private final long flipped;
+    // Whether the player to move still has a disc of this kind available
+    private final boolean available;
+
+    /**
+     * Creates a probe result.
+     *
+     * @param position  the probed position.
+     * @param kind      the kind of disc that would be placed.
+     * @param flipped   the squares that would be flipped, as a bitboard mask.
+     * @param available whether the player to move may still place a disc of this kind.
+     */
+    public FlipResult(Position position, DiscKind kind, long flipped, boolean available) {
+        this.position = position;
+        this.kind = kind;
+        this.flipped = flipped;
+        this.available = available;
+    }
+
+    public Position position() {
+        return position;
+    }
+
+    public DiscKind kind() {
+        return kind;
+    }
+
+    /**
+     * Returns the squares that would be flipped as a bitboard mask.
+     *
+     * @return the flipped squares, or 0 if the move flips nothing.
+     */
+    public long flipped() {
+        return flipped;
+    }
+
+    /**
+     * Returns the number of discs that would be flipped.
+     *
+     * @return the flip count.
+     */
+    public int count() {
+        return Long.bitCount(flipped);
+    }
+
+    /**
+     * Checks whether the move may be played: it flips at least one disc
+     * and the player to move still has a disc of the probed kind.
+     *
+     * @return {@code true} if the move is legal.
+     */
+    public boolean isLegal() {
+        return flipped != 0 && available;
+    }
+
+    /**
+     * Returns the flipped squares as positions, in row-major order.
+     *
+     * @return an unmodifiable list of the flipped positions.
+     */
+    public List<Position> flippedPositions() {
+        List<Position> positions = new ArrayList<>(count());
+        for (long flips = flipped; flips != 0; flips &= flips - 1) {
+            int square = Long.numberOfTrailingZeros(flips);
+            positions.add(Position.of(square));
+        }
+        return Collections.unmodifiableList(positions);
+    }
+}
@@ -2,7 +2,12 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * IMPORTANT:
@@ -11,8 +16,32 @@ import java.util.List;
 public class GUI_for_chess_like_games extends JFrame {
     private static final int BUTTON_SIZE = 55;
     private static final int FONT_SIZE = 20;
+    // Colors and font of the cells, created once
+    private static final Color DARK_SQUARE = new Color(0, 0, 0);
+    private static final Color LIGHT_HINT = new Color(199, 255, 199);  // Light green
+    private static final Color DARK_HINT = new Color(0, 100, 0);  // Dark green
+    private static final Color PLAYER_TWO = new Color(255, 0, 0);
+    private static final Font CHESS_FONT = new Font("DejaVu Sans", Font.PLAIN, FONT_SIZE);
+    // Flip counts shown on the hints, so redrawing a hint allocates no string
+    private static final String[] NUMBERS = new String[65];
+    // Hint value of a cell that is not a valid move
+    private static final int NO_HINT = -1;
+
+    static {
+        for (int i = 0; i < NUMBERS.length; i++) NUMBERS[i] = String.valueOf(i);
+    }
+
     private final JButton[][] buttons;
     private final int BOARD_SIZE;
+    // What each cell shows, by square index, so a redraw only touches the cells that changed
+    private final DiscKind[] shownKinds;
+    private final boolean[] shownPlayerOne;
+    private final int[] shownHints;
+    // Position and valid moves the cells show, when the game is a GameLogic; null until the first redraw
+    private transient GameState shownState;
+    private long shownLegal;
+    // Scratch array for the hints being computed
+    private final int[] hints;
     private PlayableLogic gameLogic;
     private final JLabel turnLabel = new JLabel("Player 1's Turn");
     private final JLabel playerTowWinsLabel = new JLabel("Player 2 Wins: 0");
@@ -24,6 +53,8 @@ public class GUI_for_chess_like_games extends JFrame {
     private final JSlider aiSpeedSlider = new JSlider(JSlider.VERTICAL, 0, 2000, 1000);; // Slider to control AI response speed
     private boolean showColor = true;
     private boolean showNumbers = true;
+    // Whether AIs search on while a human thinks
+    private boolean ponder = false;
     private final JCheckBox numbersCheckBox = new JCheckBox(new AbstractAction() {
         @Override
         public void actionPerformed(ActionEvent e) {
@@ -33,24 +64,26 @@ public class GUI_for_chess_like_games extends JFrame {
         }
     });
 
+    // AI moves are computed on this thread, so the window stays responsive while an AI thinks
+    private final transient ExecutorService aiWorker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Shown while an AI is thinking
+    private final JProgressBar aiProgress = new JProgressBar();
+    // The AI currently thinking, if any, and the number of its request; a result with an older number is discarded
+    private transient AIPlayer thinkingPlayer;
+    private int aiGeneration = 0;
+
     Timer timer = new Timer(aiSpeedSlider.getValue(), e -> {
         Player currentPlayer = gameLogic.isFirstPlayerTurn() ? gameLogic.getFirstPlayer() : gameLogic.getSecondPlayer();
 
-        // If it's an AI player's turn
+        // If it's an AI player's turn, let it think on the worker; the timer restarts when its move arrives
         if (!currentPlayer.isHuman()) {
-
-            Move aiMove = ((AIPlayer) currentPlayer).makeMove(gameLogic);
-            preform_move(aiMove.position(), aiMove.disc());
-
-            // Update the current player after the move
-            currentPlayer = gameLogic.isFirstPlayerTurn() ? gameLogic.getFirstPlayer() : gameLogic.getSecondPlayer();
-
-            // If the next player is human, stop the timer
-            if (currentPlayer.isHuman()) {
-                ((Timer) e.getSource()).stop();  // Stop the timer
-                isAITurn = false;  // Reset AI flag
-            }
-            updateBoard();
+            ((Timer) e.getSource()).stop();
+            startAIMove((AIPlayer) currentPlayer);
+            return;
         }
         ((Timer) e.getSource()).setInitialDelay(aiSpeedSlider.getValue());
         ((Timer) e.getSource()).restart();
@@ -65,6 +98,12 @@ public class GUI_for_chess_like_games extends JFrame {
         super(title);
         this.gameLogic = gameLogic;
         this.BOARD_SIZE = gameLogic.getBoardSize();
+        shownKinds = new DiscKind[BOARD_SIZE * BOARD_SIZE];
+        shownPlayerOne = new boolean[BOARD_SIZE * BOARD_SIZE];
+        shownHints = new int[BOARD_SIZE * BOARD_SIZE];
+        hints = new int[BOARD_SIZE * BOARD_SIZE];
+        // Nothing is drawn yet, so the first redraw draws every cell
+        Arrays.fill(shownHints, Integer.MIN_VALUE);
         setTitle(title);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
@@ -83,6 +122,17 @@ public class GUI_for_chess_like_games extends JFrame {
         // The timer will repeat every second
         timer.setRepeats(true);
 
+        // Stop any AI that is still thinking when the window closes
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelAIMove();
+                timer.stop();
+                stopPondering();
+                aiWorker.shutdownNow();
+            }
+        });
+
         // Create a panel with BoxLayout (Y_AXIS) to arrange components vertically
         JPanel sliderPanel = new JPanel();
         sliderPanel.setLayout(new BoxLayout(sliderPanel, BoxLayout.Y_AXIS));
@@ -117,6 +167,18 @@ public class GUI_for_chess_like_games extends JFrame {
         sliderPanel.add(numbersLabel);
         sliderPanel.add(numbersCheckBox);
 
+        // Add the pondering option below the numbers checkbox
+        JLabel ponderLabel = new JLabel("AI Ponders:");
+        JCheckBox ponderCheckBox = new JCheckBox(new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ponder = !ponder;
+                updatePondering();
+            }
+        });
+        sliderPanel.add(ponderLabel);
+        sliderPanel.add(ponderCheckBox);
+
         // Add the label and the slider to the panel
         sliderPanel.add(sliderLabel);
         sliderPanel.add(aiSpeedSlider);
@@ -131,8 +193,16 @@ public class GUI_for_chess_like_games extends JFrame {
 
         // An action listener to the back button
         backButton.addActionListener(e -> {
-            // implementation of the "Back Button"
+            // implementation of the "Back Button"; a move an AI is still thinking about is dropped
+            cancelAIMove();
             gameLogic.undoLastMove();
+            Player currentPlayer = gameLogic.isFirstPlayerTurn() ? gameLogic.getFirstPlayer() : gameLogic.getSecondPlayer();
+            if (!currentPlayer.isHuman()) {
+                isAITurn = true;
+                timer.setInitialDelay(aiSpeedSlider.getValue());
+                timer.restart();
+            }
+            updatePondering();
             updateBoard();
         });
 
@@ -153,6 +223,13 @@ public class GUI_for_chess_like_games extends JFrame {
         turnLabel.setForeground(Color.blue);
         topPanel.add(turnLabel, BorderLayout.CENTER);
         topPanel.add(rightLabelPanel, BorderLayout.EAST);
+
+        // The AI progress indicator, hidden until an AI starts thinking
+        aiProgress.setIndeterminate(true);
+        aiProgress.setStringPainted(true);
+        aiProgress.setString("AI thinking...");
+        aiProgress.setVisible(false);
+        topPanel.add(aiProgress);
         add(topPanel, BorderLayout.NORTH);
         mainPanel.setLayout(new GridLayout(BOARD_SIZE, BOARD_SIZE));
         buttons = new JButton[BOARD_SIZE][BOARD_SIZE];
@@ -222,11 +299,11 @@ public class GUI_for_chess_like_games extends JFrame {
         Player currentPlayer = gameLogic.isFirstPlayerTurn() ? gameLogic.getFirstPlayer() : gameLogic.getSecondPlayer();
         if (currentPlayer.isHuman()) {
             if (bombKeyPressed) {
-                preform_move(newPosition, new BombDisc(currentPlayer));
+                preform_move(newPosition, currentPlayer.disc(DiscKind.BOMB));
             } else if (unflippedKeyPressed) {
-                preform_move(newPosition, new UnflippableDisc(currentPlayer));
+                preform_move(newPosition, currentPlayer.disc(DiscKind.UNFLIPPABLE));
             } else {
-                if (!preform_move(newPosition, new SimpleDisc(currentPlayer)))
+                if (!preform_move(newPosition, currentPlayer.disc(DiscKind.SIMPLE)))
                     return;
             }
         }
@@ -234,6 +311,7 @@ public class GUI_for_chess_like_games extends JFrame {
 
         if (!currentPlayer.isHuman())
             isAITurn = true;
+        updatePondering();
 
         // Start the AI turn with a delay
         updateBoard();
@@ -243,6 +321,93 @@ public class GUI_for_chess_like_games extends JFrame {
         timer.restart();
     }
 
+    /**
+     * Starts computing the move of an AI on the worker thread, against a snapshot of the game.
+     * The move is played on the event dispatch thread when it arrives, unless the request was cancelled.
+     *
+     * @param ai the AI to move.
+     */
+    private void startAIMove(AIPlayer ai) {
+        // An immutable snapshot, inventories included, keeps the search away from the game that undo and reset change
+        PlayableLogic snapshot = gameLogic instanceof GameLogic logic ? SnapshotLogic.of(logic) : gameLogic;
+        int generation = ++aiGeneration;
+        thinkingPlayer = ai;
+        // From here on a cancel stops this move, even if the worker has not started it yet
+        ai.prepareMove();
+        aiProgress.setVisible(true);
+        aiWorker.execute(() -> {
+            Move move = null;
+            try {
+                move = ai.makeMove(snapshot);
+            } finally {
+                // Also report a failed request, so the progress indicator does not spin forever
+                Move result = move;
+                SwingUtilities.invokeLater(() -> finishAIMove(generation, result));
+            }
+        });
+    }
+
+    /**
+     * Plays the move computed by an AI and lets the timer ask for the next one.
+     *
+     * @param generation the number of the request the move answers.
+     * @param move       the move, or {@code null} if the AI failed.
+     */
+    private void finishAIMove(int generation, Move move) {
+        // Drop the answers to requests cancelled by undo, reset or closing the window
+        if (generation != aiGeneration) return;
+        thinkingPlayer = null;
+        aiProgress.setVisible(false);
+        if (move == null) {
+            isAITurn = false;
+            return;
+        }
+        preform_move(move.position(), move.disc());
+
+        // Update the current player after the move; if the next player is human, the AI turn is over
+        Player currentPlayer = gameLogic.isFirstPlayerTurn() ? gameLogic.getFirstPlayer() : gameLogic.getSecondPlayer();
+        if (currentPlayer.isHuman()) {
+            isAITurn = false;
+        } else {
+            timer.setInitialDelay(aiSpeedSlider.getValue());
+            timer.restart();
+        }
+        updatePondering();
+        updateBoard();
+    }
+
+    /**
+     * Cancels the AI move being computed, if any: the search is asked to stop and its move will be ignored.
+     */
+    private void cancelAIMove() {
+        aiGeneration++;
+        if (thinkingPlayer != null) {
+            thinkingPlayer.stopThinking();
+            thinkingPlayer = null;
+        }
+        aiProgress.setVisible(false);
+        isAITurn = false;
+    }
+
+    /**
+     * Lets a searching AI ponder while a human is to move against it, if pondering is on, and stops every
+     * other background search. Called whenever the player to move changes.
+     */
+    private void updatePondering() {
+        stopPondering();
+        Player currentPlayer = gameLogic.isFirstPlayerTurn() ? gameLogic.getFirstPlayer() : gameLogic.getSecondPlayer();
+        Player opponent = gameLogic.isFirstPlayerTurn() ? gameLogic.getSecondPlayer() : gameLogic.getFirstPlayer();
+        if (ponder && currentPlayer.isHuman() && opponent instanceof AlphaBetaAI ai) {
+            // The search gets an immutable snapshot, so the human can move while it runs
+            ai.startPondering(GameState.of(gameLogic));
+        }
+    }
+
+    private void stopPondering() {
+        if (gameLogic.getFirstPlayer() instanceof AlphaBetaAI ai) ai.stopPondering();
+        if (gameLogic.getSecondPlayer() instanceof AlphaBetaAI ai) ai.stopPondering();
+    }
+
     // Return true only if preformed the move
     private boolean preform_move(Position move, Disc disc) {
         if (gameLogic.locate_disc(move, disc)) {
@@ -261,6 +426,7 @@ public class GUI_for_chess_like_games extends JFrame {
      * It updates the turn label, the button text, and the text color based on the current game state.
      * For each cell on the board, the button's appearance and text will be updated to match the corresponding
      * piece's position and type. The text color is determined by the piece's owner.
+     * Only the cells whose disc or hint changed since they were last drawn are touched.
      *
      * @see #updateWinsLabels(int, int)
      */
@@ -274,68 +440,95 @@ public class GUI_for_chess_like_games extends JFrame {
             turnLabel.setText("Player 1's Turn");
         }
 
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            for (int row = 0; row < BOARD_SIZE; row++) {
-                // Set alternating background colors for a chessboard pattern
-                if ((row + col) % 2 != 0) {
-                    buttons[row][col].setBackground(new Color(0, 0, 0));
-                } else {
-                    buttons[row][col].setBackground(Color.WHITE);
-                }
-            }
-        }
-
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                Disc disc = gameLogic.getDiscAtPosition(new Position(row, col));
-                if (disc != null) {
-                    // Update the button's appearance based on the new piece position
-                    String type = disc.getType();
-                    buttons[row][col].setText(type);
-                    if ((disc.getOwner().isPlayerOne())) {
-                        buttons[row][col].setForeground(Color.BLUE);
-                    } else {
-                        buttons[row][col].setForeground(new Color(255, 0, 0));
-                    }
-                } else {
-                    buttons[row][col].setText("");
-                }
-            }
-        }
-
-        if (!isAITurn && showColor)
-            enhanceColor();
+        renderSquares();
 
         updateWinsLabels(gameLogic.getSecondPlayer().getWins(), gameLogic.getFirstPlayer().getWins());
     }
 
-    private void enhanceColor() {
-        List<Position> possiblePositions = this.gameLogic.ValidMoves();
-        for (Position p : possiblePositions) {
-            JButton button = buttons[p.row()][p.col()];
-            Color currentColor = button.getBackground();
-
-            // Determine if the current color is closer to white or black
-            int brightness = (currentColor.getRed() + currentColor.getGreen() + currentColor.getBlue()) / 3;
-
-            Color enhancedColor;
-            if (brightness > 128) {
-                // For lighter colors (closer to white)
-                enhancedColor = new Color(199, 255, 199);  // Light green
-            } else {
-                // For darker colors (closer to black)
-                enhancedColor = new Color(0, 100, 0);  // Dark green
+    /**
+     * Redraws the cells that changed: the placed and flipped discs of the last move (or of an undo or reset)
+     * and the cells whose move hint appeared, disappeared or changed number.
+     */
+    private void renderSquares() {
+        boolean showHints = !isAITurn && showColor;
+        if (!(gameLogic instanceof GameLogic logic)) {
+            // Any other game: compute every hint through the interface and compare every cell
+            Arrays.fill(hints, NO_HINT);
+            if (showHints) {
+                for (Position p : gameLogic.ValidMoves()) {
+                    int square = p.row() * BOARD_SIZE + p.col();
+                    hints[square] = showNumbers ? gameLogic.countFlips(square) : 0;
+                }
             }
+            for (int square = 0; square < hints.length; square++) renderIfChanged(square);
+            return;
+        }
+        GameState state = logic.snapshot();
+        long legal = showHints ? state.legalSquares() : 0;
+        // Only cells whose disc changed owner or kind, such as the placed and flipped discs, and cells that are
+        // or were a valid move can look different
+        long candidates = -1L;
+        if (shownState != null) {
+            candidates = (state.discs(true) ^ shownState.discs(true)) | (state.discs(false) ^ shownState.discs(false))
+                    | (state.bombs() ^ shownState.bombs()) | (state.unflippables() ^ shownState.unflippables())
+                    | legal | shownLegal;
+        }
+        for (long squares = candidates; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            hints[square] = (legal & BitBoard.bit(square)) == 0 ? NO_HINT
+                    : showNumbers ? Long.bitCount(state.flips(square)) : 0;
+            renderIfChanged(square);
+        }
+        shownState = state;
+        shownLegal = legal;
+    }
 
-            button.setBackground(enhancedColor);
-            if (showNumbers) {
-                int num = gameLogic.countFlips(p);
-                button.setForeground(Color.black);
-                button.setText(String.valueOf(num));
-            }
+    /**
+     * Redraws a cell if its disc or its hint differs from what it shows.
+     *
+     * @param square the index of the cell; its hint must be in {@code hints}.
+     */
+    private void renderIfChanged(int square) {
+        Disc disc = gameLogic.getDiscAtPosition(square);
+        DiscKind kind = disc == null ? null : disc.kind();
+        boolean playerOne = disc != null && disc.getOwner().isPlayerOne();
+        if (kind == shownKinds[square] && playerOne == shownPlayerOne[square] && hints[square] == shownHints[square]) {
+            return;
         }
+        renderSquare(square / BOARD_SIZE, square % BOARD_SIZE, disc, hints[square]);
+        shownKinds[square] = kind;
+        shownPlayerOne[square] = playerOne;
+        shownHints[square] = hints[square];
     }
 
+    /**
+     * Draws one cell.
+     *
+     * @param row  the row of the cell.
+     * @param col  the column of the cell.
+     * @param disc the disc on the cell, or {@code null}.
+     * @param hint {@code NO_HINT}, 0 to highlight the cell as a valid move, or the number of flips to show on it.
+     */
+    private void renderSquare(int row, int col, Disc disc, int hint) {
+        JButton button = buttons[row][col];
+        // Alternating background colors for a chessboard pattern, green for valid moves
+        boolean dark = (row + col) % 2 != 0;
+        if (hint == NO_HINT) {
+            button.setBackground(dark ? DARK_SQUARE : Color.WHITE);
+        } else {
+            button.setBackground(dark ? DARK_HINT : LIGHT_HINT);
+        }
+        if (disc != null) {
+            // The text color is determined by the piece's owner
+            button.setText(disc.getType());
+            button.setForeground(disc.getOwner().isPlayerOne() ? Color.BLUE : PLAYER_TWO);
+        } else if (hint > 0) {
+            button.setForeground(Color.black);
+            button.setText(hint < NUMBERS.length ? NUMBERS[hint] : String.valueOf(hint));
+        } else {
+            button.setText("");
+        }
+    }
 
     private void updateWinsLabels(int attackerWins, int defenderWins) {
         playerTowWinsLabel.setText("Player 2 Wins: " + attackerWins);
@@ -353,32 +546,11 @@ public class GUI_for_chess_like_games extends JFrame {
             for (int col = 0; col < BOARD_SIZE; col++) {
                 buttons[row][col] = new JButton();
                 buttons[row][col].setPreferredSize(new Dimension(BUTTON_SIZE, BUTTON_SIZE)); // Adjust size as needed
-                Font chessFont = new Font("DejaVu Sans", Font.PLAIN, FONT_SIZE);
-                buttons[row][col].setFont(chessFont);
-
-                // Set alternating background colors for a chessboard pattern
-                if ((row + col) % 2 != 0) {
-                    buttons[row][col].setBackground(new Color(0, 0, 0));
-                }
-                else  {
-                    buttons[row][col].setBackground(Color.WHITE);
-                }
+                buttons[row][col].setFont(CHESS_FONT);
 
                 // Clear default border and content area
                 buttons[row][col].setBorderPainted(false);
 
-                if (gameLogic.getDiscAtPosition(new Position(row, col)) != null) {
-                    // Set the button's appearance based on the piece type
-                    Disc disc = gameLogic.getDiscAtPosition(new Position(row, col));
-                    String type = disc.getType();
-                    buttons[row][col].setText(type);
-                    if ((disc.getOwner().isPlayerOne())) {
-                        buttons[row][col].setForeground(Color.BLUE);
-                    } else {
-                        buttons[row][col].setForeground(new Color(255, 0, 0));
-                    }
-                }
-
                 mainPanel.add(buttons[row][col]);
                 buttons[row][col].putClientProperty("row", row); // Store the row index
                 buttons[row][col].putClientProperty("col", col); // Store the column index
@@ -387,15 +559,15 @@ public class GUI_for_chess_like_games extends JFrame {
 
                     int rowIndex = (int) clickedButton.getClientProperty("row");
                     int colIndex = (int) clickedButton.getClientProperty("col");
-                    Position newPosition = new Position(rowIndex, colIndex);
+                    Position newPosition = Position.of(rowIndex, colIndex);
 
                     ButtonListener(newPosition);  // Use the updated logic
                 });
 
             }
         }
-        if (!isAITurn && showColor)
-            enhanceColor();
+        // Draw every cell: the pieces, the chessboard pattern and the valid moves
+        renderSquares();
         // Add the main panel to the frame
         getContentPane().add(mainPanel);
 
@@ -404,12 +576,14 @@ public class GUI_for_chess_like_games extends JFrame {
         setVisible(true);
     }
     public void resetGame() {
+        cancelAIMove();
         gameLogic.reset();
         Player currentPlayer = gameLogic.isFirstPlayerTurn() ? gameLogic.getFirstPlayer() : gameLogic.getSecondPlayer();
 
         if (!currentPlayer.isHuman()) {
-            ButtonListener(new Position(0, 0));
+            ButtonListener(Position.of(0, 0));
         }
+        updatePondering();
         // Reset UI elements
         updateBoard();
         turnLabel.setText("Player 1's Turn");
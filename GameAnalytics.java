@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Computes statistics over a {@link GameRecord} file.
+ * <p>
+ * Every game is replayed on {@link GameState}, which is cheap and logs nothing, and folded into per-thread
+ * statistics that are merged at the end. The games are read from the memory-mapped file one by one and
+ * never held in memory together, so archives of millions of games need little heap, and the work is
+ * split over a fork-join pool, so it scales with the number of cores.
+ * <p>
+ * The report covers:
+ * <ul>
+ *   <li>how often each square is played, and each disc kind;</li>
+ *   <li>the length of bomb chains: how many bombs a move detonates, for the moves that detonate any;</li>
+ *   <li>how well unflippable discs and bombs pay off: the score of a player by the number of them they played;</li>
+ *   <li>the score of player 1 by opening, the first few moves of the game.</li>
+ * </ul>
+ * Scores count a win as 1 and a draw as one half.
+ * <p>
+ * Usage: {@code java GameAnalytics <file> [--json] [--opening-plies n] [--threads n]}; prints the report as CSV
+ * (columns {@code table,key,count,value}) or as JSON.
+ */
+public class GameAnalytics {
+    /**
+     * Statistics of a set of games. Each thread fills its own instance; instances are then merged.
+     */
+    static final class Statistics {
+        private final int openingPlies;
+        long games;
+        long moves;
+        // Moves by square and by disc kind
+        final long[] squares = new long[BitBoard.SIZE * BitBoard.SIZE];
+        final long[] kinds = new long[DiscKind.values().length];
+        // Moves by number of bombs detonated, from 1
+        final long[] bombChains = new long[BitBoard.SIZE * BitBoard.SIZE + 1];
+        // Player-games and points times two, by number of unflippable discs and of bombs played
+        final long[][] unflippablesUsed = new long[BitBoard.SIZE * BitBoard.SIZE][2];
+        final long[][] bombsUsed = new long[BitBoard.SIZE * BitBoard.SIZE][2];
+        // Games and player 1's points times two, by opening
+        final Map<String, long[]> openings = new HashMap<>();
+
+        Statistics(int openingPlies) {
+            this.openingPlies = openingPlies;
+        }
+
+        /**
+         * Replays a game and adds it to the statistics.
+         *
+         * @param game the game.
+         * @throws IllegalArgumentException if the game contains an illegal move.
+         */
+        void add(GameRecord game) {
+            GameState state = GameState.initial();
+            int[] unflippables = new int[2];
+            int[] bombs = new int[2];
+            StringBuilder opening = new StringBuilder();
+            for (int ply = 0; ply < game.moveCount(); ply++) {
+                int move = game.move(ply);
+                if (!state.isLegal(move)) throw new IllegalArgumentException("Illegal move " + Perft.formatMove(move) + " at ply " + ply);
+                boolean playerOne = state.isPlayerOneToMove();
+                DiscKind kind = GameState.kind(move);
+                GameState next = state.play(move);
+                squares[GameState.square(move)]++;
+                kinds[kind.ordinal()]++;
+                if (kind == DiscKind.UNFLIPPABLE) unflippables[playerOne ? 0 : 1]++;
+                if (kind == DiscKind.BOMB) bombs[playerOne ? 0 : 1]++;
+                // Every opponent bomb the move flips, directly or through another bomb, detonates
+                long flipped = next.discs(playerOne) & state.discs(!playerOne);
+                int detonated = Long.bitCount(flipped & state.bombs());
+                if (detonated > 0) bombChains[detonated]++;
+                if (ply < openingPlies) opening.append(ply == 0 ? "" : " ").append(Perft.formatMove(move));
+                state = next;
+            }
+            int points1 = Integer.signum(game.margin()) + 1;
+            games++;
+            moves += game.moveCount();
+            unflippablesUsed[unflippables[0]][0]++;
+            unflippablesUsed[unflippables[0]][1] += points1;
+            unflippablesUsed[unflippables[1]][0]++;
+            unflippablesUsed[unflippables[1]][1] += 2 - points1;
+            bombsUsed[bombs[0]][0]++;
+            bombsUsed[bombs[0]][1] += points1;
+            bombsUsed[bombs[1]][0]++;
+            bombsUsed[bombs[1]][1] += 2 - points1;
+            long[] openingStats = openings.computeIfAbsent(opening.toString(), key -> new long[2]);
+            openingStats[0]++;
+            openingStats[1] += points1;
+        }
+
+        /**
+         * Adds the statistics of another set of games.
+         *
+         * @param other the other statistics.
+         */
+        void merge(Statistics other) {
+            games += other.games;
+            moves += other.moves;
+            add(squares, other.squares);
+            add(kinds, other.kinds);
+            add(bombChains, other.bombChains);
+            for (int i = 0; i < unflippablesUsed.length; i++) {
+                add(unflippablesUsed[i], other.unflippablesUsed[i]);
+                add(bombsUsed[i], other.bombsUsed[i]);
+            }
+            other.openings.forEach((opening, stats) -> add(openings.computeIfAbsent(opening, key -> new long[2]), stats));
+        }
+
+        private static void add(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) into[i] += from[i];
+        }
+
+        /**
+         * Lists the report rows: table, key, count and value (a share of the table, or a score).
+         */
+        List<Object[]> rows() {
+            List<Object[]> rows = new ArrayList<>();
+            for (int square = 0; square < squares.length; square++) {
+                rows.add(new Object[]{"square", Perft.formatMove(square), squares[square], share(squares[square], moves)});
+            }
+            for (DiscKind kind : DiscKind.values()) {
+                rows.add(new Object[]{"kind", kind.name().toLowerCase(Locale.ROOT), kinds[kind.ordinal()],
+                        share(kinds[kind.ordinal()], moves)});
+            }
+            long detonations = 0;
+            for (long count : bombChains) detonations += count;
+            for (int length = 1; length < bombChains.length; length++) {
+                if (bombChains[length] > 0) {
+                    rows.add(new Object[]{"bomb_chain", String.valueOf(length), bombChains[length], share(bombChains[length], detonations)});
+                }
+            }
+            addScores(rows, "unflippables_used", unflippablesUsed);
+            addScores(rows, "bombs_used", bombsUsed);
+            new TreeMap<>(openings).forEach((opening, stats) ->
+                    rows.add(new Object[]{"opening", opening.isEmpty() ? "-" : opening, stats[0], share(stats[1], 2 * stats[0])}));
+            return rows;
+        }
+
+        private static void addScores(List<Object[]> rows, String table, long[][] stats) {
+            for (int used = 0; used < stats.length; used++) {
+                if (stats[used][0] > 0) {
+                    rows.add(new Object[]{table, String.valueOf(used), stats[used][0], share(stats[used][1], 2 * stats[used][0])});
+                }
+            }
+        }
+
+        private static double share(long part, long whole) {
+            return whole == 0 ? 0 : (double) part / whole;
+        }
+    }
+
+    private final GameRecordReader reader;
+    private final int openingPlies;
+    private final int threads;
+
+    /**
+     * Creates an analysis of a game record file.
+     *
+     * @param reader       the games.
+     * @param openingPlies the number of moves that make up an opening.
+     * @param threads      the number of threads to use.
+     */
+    public GameAnalytics(GameRecordReader reader, int openingPlies, int threads) {
+        this.reader = reader;
+        this.openingPlies = openingPlies;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Replays every game and collects the statistics.
+     *
+     * @return the statistics of all games.
+     */
+    Statistics run() throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> IntStream.range(0, reader.size()).parallel().collect(
+                    () -> new Statistics(openingPlies),
+                    (statistics, game) -> statistics.add(reader.get(game)),
+                    Statistics::merge)).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Prints the report as CSV, one row per line with a header line.
+     *
+     * @param statistics the statistics.
+     * @param out        where to print.
+     */
+    static void printCsv(Statistics statistics, PrintStream out) {
+        out.println("table,key,count,value");
+        for (Object[] row : statistics.rows()) {
+            out.printf(Locale.ROOT, "%s,\"%s\",%d,%.6f%n", row);
+        }
+    }
+
+    /**
+     * Prints the report as a JSON object with the game and move counts and one array of rows per table.
+     *
+     * @param statistics the statistics.
+     * @param out        where to print.
+     */
+    static void printJson(Statistics statistics, PrintStream out) {
+        out.printf(Locale.ROOT, "{\"games\":%d,\"moves\":%d", statistics.games, statistics.moves);
+        String table = null;
+        for (Object[] row : statistics.rows()) {
+            if (!row[0].equals(table)) {
+                out.printf(Locale.ROOT, "%s,%n\"%s\":[", table == null ? "" : "]", row[0]);
+                table = (String) row[0];
+            } else {
+                out.print(",");
+            }
+            out.printf(Locale.ROOT, "{\"key\":\"%s\",\"count\":%d,\"value\":%.6f}", row[1], row[2], row[3]);
+        }
+        out.println(table == null ? "}" : "]}");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        String file = null;
+        boolean json = false;
+        int openingPlies = 4;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--json" -> json = true;
+                case "--opening-plies" -> openingPlies = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> file = args[i];
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: java GameAnalytics <file> [--json] [--opening-plies n] [--threads n]");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        Statistics statistics = new GameAnalytics(GameRecordReader.open(Path.of(file)), openingPlies, threads).run();
+        if (json) printJson(statistics, System.out);
+        else printCsv(statistics, System.out);
+        System.err.printf(Locale.ROOT, "%d games, %d moves analyzed on %d threads in %.1f s%n", statistics.games,
+                statistics.moves, threads, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Something that happened in a game: a disc placed or flipped, a move undone or redone, or the end of the game.
+ * <p>
+ * Events are sent by {@link GameLogic} to its {@link GameEventSink}. Moves played by a search to look ahead,
+ * rather than moves of the real game, are marked {@linkplain #speculative() speculative}.
+ *
+ * @param game        the number of the game, so the events of games sharing a sink can be told apart;
+ *                    see {@link GameLogic#getGameId()}.
+ * @param type        what happened.
+ * @param ply         the number of moves played before the event's move, or the length of the game for
+ *                    {@link Type#GAME_OVER}.
+ * @param playerOne   whether the event concerns player 1: the player who placed or flipped the disc, whose move
+ *                    is undone or redone, or who gets a disc back, or the winner.
+ * @param kind        the kind of the disc placed, flipped or removed, or {@code null} if there is none.
+ * @param square      the square of the disc (row * 8 + column), or -1 if there is none, e.g. for an undo
+ *                    with no move to undo.
+ * @param speculative whether the move was played by a search rather than in the real game.
+ * @param discs1      player 1's discs on the board, for {@link Type#GAME_OVER} only.
+ * @param discs2      player 2's discs on the board, for {@link Type#GAME_OVER} only.
+ */
+public record GameEvent(long game, Type type, int ply, boolean playerOne, DiscKind kind, int square, boolean speculative,
+                        int discs1, int discs2) {
+
+    /**
+     * The kinds of game events.
+     */
+    public enum Type {
+        // A disc was placed by the player to move
+        PLACE,
+        // An opponent disc was flipped by the placed disc or by a bomb
+        FLIP,
+        // The last move is being undone; its disc is removed
+        UNDO,
+        // A disc flipped by the undone move is given back
+        FLIP_BACK,
+        // An undone move is being played again; PLACE and FLIP events follow
+        REDO,
+        // The player to move has no legal move
+        GAME_OVER
+    }
+
+    static GameEvent disc(long game, Type type, int ply, boolean playerOne, DiscKind kind, int square, boolean speculative) {
+        return new GameEvent(game, type, ply, playerOne, kind, square, speculative, 0, 0);
+    }
+
+    static GameEvent gameOver(long game, int ply, boolean playerOneWins, boolean speculative, int discs1, int discs2) {
+        return new GameEvent(game, Type.GAME_OVER, ply, playerOneWins, null, -1, speculative, discs1, discs2);
+    }
+
+    /**
+     * Returns the row of the event's square.
+     *
+     * @return the row, or -1 if the event has no square.
+     */
+    public int row() {
+        return square < 0 ? -1 : square / BitBoard.SIZE;
+    }
+
+    /**
+     * Returns the column of the event's square.
+     *
+     * @return the column, or -1 if the event has no square.
+     */
+    public int col() {
+        return square < 0 ? -1 : square % BitBoard.SIZE;
+    }
+}
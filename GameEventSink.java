@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Receives the events of a game, for logging or analysis.
+ * <p>
+ * {@link GameLogic} asks {@link #accepts(boolean)} before it builds an event, so a sink that takes nothing,
+ * like the default {@link #NONE}, costs no allocation and no I/O. By default a sink only takes the events of
+ * real game moves; moves a search plays to look ahead are dropped at the source unless the sink asks for them.
+ * <p>
+ * Sinks may be shared by games running on several threads, so implementations must be thread-safe.
+ */
+public interface GameEventSink extends AutoCloseable {
+
+    /**
+     * A sink that takes no events.
+     */
+    GameEventSink NONE = new GameEventSink() {
+        @Override
+        public boolean accepts(boolean speculative) {
+            return false;
+        }
+
+        @Override
+        public void accept(GameEvent event) {
+        }
+    };
+
+    /**
+     * Returns whether the sink wants events of the given kind of move. Called before each event is built.
+     *
+     * @param speculative whether the move is played by a search rather than in the real game.
+     * @return {@code true} to receive the event.
+     */
+    default boolean accepts(boolean speculative) {
+        return !speculative;
+    }
+
+    /**
+     * Receives an event.
+     *
+     * @param event the event.
+     */
+    void accept(GameEvent event);
+
+    /**
+     * Writes out any events the sink still holds.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Writes out any events the sink still holds and releases its resources.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Creates the sink selected by the {@code reversi.events} system property: {@code console} to print the
+     * events, {@code json:<file>} to write them as JSON lines to a file in the background,
+     * or nothing for no logging. File sinks are closed when the program exits.
+     *
+     * @return the configured sink, or {@link #NONE}.
+     * @throws UncheckedIOException if the event file cannot be opened.
+     */
+    static GameEventSink configured() {
+        String setting = System.getProperty("reversi.events", "");
+        if (setting.equals("console")) return new ConsoleEventSink(System.out);
+        if (setting.startsWith("json:")) {
+            try {
+                GameEventSink sink = new AsyncEventSink(new JsonLinesEventSink(Path.of(setting.substring("json:".length()))));
+                Runtime.getRuntime().addShutdownHook(new Thread(sink::close));
+                return sink;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open the event log " + setting, e);
+            }
+        }
+        return NONE;
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 /**
  * Represents the core logic of a two-player board game.
  * This class handles the board state, player turns, legal moves, and game mechanics such as flipping discs and handling special discs (like bombs and unflippable discs).
@@ -13,21 +14,23 @@ public class GameLogic implements PlayableLogic {
     private Player player2;
     // The game board, a 2D array of discs
     private Disc[][] board;
+    // Bitboard mirror of the board, used for move generation and flip computation
+    private BitBoard bitBoard;
     // History of moves made during the game
     private List<Move> moveHistory;
-    // Tracks positions where special flips (bombs) happen
-    private List<Position> haveBeenHere = new ArrayList<>();
+    // Moves that were undone and can be replayed with redoLastMove()
+    private Deque<Move> redoHistory;
     // The current player whose turn it is
     private Player currentPlayer;
-    // List of positions that will be flipped during a move
-    private List<Position> toFlipFinal;
-    // List of positions for bomb flips
-    private List<Position> toFlipBomb;
-    // Directions for checking adjacent positions (horizontal, vertical, diagonal)
-    private static final int[][] DIRECTIONS = {
-            {0, 1}, {0, -1}, {1, 0}, {-1, 0},
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
-    };
+    // Where the game events go, and whether the moves being played are a search's look-ahead rather than real moves
+    private GameEventSink eventSink = DEFAULT_EVENT_SINK;
+    private boolean speculative;
+    // Number of the game in the events, so games sharing a sink can be told apart; every reset starts a new game
+    private long gameId;
+    // Sink of new games, chosen by the reversi.events system property
+    private static final GameEventSink DEFAULT_EVENT_SINK = GameEventSink.configured();
+    // Source of the numbers of new games
+    private static final AtomicLong GAME_IDS = new AtomicLong();
 
     /**
      * Initializes a new game board and empty move history.
@@ -35,8 +38,9 @@ public class GameLogic implements PlayableLogic {
 
     public GameLogic() {
         board = new Disc[8][8];
+        bitBoard = new BitBoard();
         moveHistory = new Stack<>();
-        toFlipBomb = new ArrayList<>();
+        redoHistory = new ArrayDeque<>();
     }
 
     /**
@@ -51,104 +55,118 @@ public class GameLogic implements PlayableLogic {
     public boolean locate_disc(Position a, Disc disc) {
         // Check if the position is already occupied by a disc
         if (board[a.row()][a.col()] != null) return false;
-        // Check if the position is valid for the move
-        if (isValidPos(a) > 0) {
-            // Ensure the player has enough bombs or unflippable discs to make the move
-            if (disc.getType().equals("💣")) {
-                if (currentPlayer.number_of_bombs == 0) return false;
-            }
-            if (disc.getType().equals("⭕")) {
-                if (currentPlayer.number_of_unflippedable == 0) return false;
-            }
-            // Create and make the move
-            Move move = new Move(a, disc);
-            move.makeMove(board, a, disc);
-            if (isFirstPlayerTurn()) {
-                System.out.println("Player 1 placed a " + disc.getType() + " in " + "(" + a.row() + "," + a.col() + ")");
-            } else {
-                System.out.println("Player 2 placed a " + disc.getType() + " in " + "(" + a.row() + "," + a.col() + ")");
-            }
-            // Update the player's remaining bombs or unflippable discs
-            if (disc.getType().equals("💣")) currentPlayer.reduce_bomb();
-            if (disc.getType().equals("⭕")) currentPlayer.reduce_unflippedable();
-            // Flip the opponent's discs according to the move
-            for (Position positions : toFlipFinal) {
-                // Skip unflippable discs
-                if (!getDiscAtPosition(positions).getType().equals("⭕")) {
-                    board[positions.row()][positions.col()].setOwner(currentPlayer);
-                }
-                // Log the flipped discs
-                if (isFirstPlayerTurn()) {
-                    System.out.println("Player 1 flipped the " + getDiscAtPosition(positions).getType() + " in " + "(" + positions.row() + "," + positions.col() + ")");
-                } else {
-                    System.out.println("Player 2 flipped the " + getDiscAtPosition(positions).getType() + " in " + "(" + positions.row() + "," + positions.col() + ")");
-                }
-            }
-            // Add the move to the history and switch the player
-            moveHistory.add(move);
-            switchPlayer();
-            toFlipFinal.clear();
-            System.out.println(" ");
+        // Check if the position is valid for the move and that the player has enough bombs or unflippable discs
+        FlipResult result = probe(a, disc.kind());
+        if (result.isLegal()) {
+            // Create the move with the player's shared disc, record the squares it flips so it can be undone, and make it
+            Move move = new Move(a, currentPlayer.disc(disc.kind()));
+            move.setFlipped(result.flipped());
+            applyMove(move);
+            // A new move invalidates the moves that were undone before it
+            redoHistory.clear();
             return true;
         }
         return false;
     }
 
     /**
-     * Recursively checks positions around a bomb disc to determine which discs should be flipped.
+     * Plays a move whose flipped squares are already recorded in it.
+     * Places the disc, updates the player's inventory, flips the recorded discs,
+     * adds the move to the history and switches the player.
+     *
+     * @param move the move to play.
+     */
+    private void applyMove(Move move) {
+        Position a = move.position();
+        Disc disc = move.disc();
+        move.makeMove(board, a, disc);
+        DiscKind kind = disc.kind();
+        int placed = a.square();
+        bitBoard.play(placed, kind, isFirstPlayerTurn(), move.flipped());
+        // Build events only when the sink takes them, so disabled logging costs nothing
+        boolean log = eventSink.accepts(speculative);
+        if (log) {
+            eventSink.accept(GameEvent.disc(gameId, GameEvent.Type.PLACE, moveHistory.size(), isFirstPlayerTurn(), kind, placed, speculative));
+        }
+        // Update the player's remaining bombs or unflippable discs
+        switch (kind) {
+            case BOMB -> currentPlayer.reduce_bomb();
+            case UNFLIPPABLE -> currentPlayer.reduce_unflippedable();
+            default -> {
+            }
+        }
+        // Flip the opponent's discs according to the move, by putting the player's disc of the same kind in their place
+        for (long flips = move.flipped(); flips != 0; flips &= flips - 1) {
+            int square = Long.numberOfTrailingZeros(flips);
+            DiscKind flipped = board[square / BitBoard.SIZE][square % BitBoard.SIZE].kind();
+            board[square / BitBoard.SIZE][square % BitBoard.SIZE] = currentPlayer.disc(flipped);
+            if (log) {
+                eventSink.accept(GameEvent.disc(gameId, GameEvent.Type.FLIP, moveHistory.size(), isFirstPlayerTurn(),
+                        flipped, square, speculative));
+            }
+        }
+        // Add the move to the history and switch the player
+        moveHistory.add(move);
+        switchPlayer();
+    }
+
+    /**
+     * Finds the discs flipped when the bomb at the given position detonates, including the discs of every
+     * opponent bomb the detonation reaches in turn. Only opponent simple and bomb discs are flipped.
+     * The chain is resolved as an iterative flood-fill over the bitboard, and the method only reads the board,
+     * so it can be called while other probes are running.
      *
      * @param position the position of the bomb disc.
-     * @return a list of positions that will be flipped due to the bomb.
+     * @return a list of positions that will be flipped due to the bomb, in row-major order.
      */
     public List<Position> bombFlip(Position position) {
-        // Add the current position to the list of visited positions to avoid revisiting
-        haveBeenHere.add(position);
+        List<Position> toFlipBomb = new ArrayList<>();
         // Ensure there is a disc at the specified position
-        if (getDiscAtPosition(position) != null) {
-            // Iterate over all possible directions to check neighboring positions
-            for (int[] direction : DIRECTIONS) {
-                int row = position.row() + direction[0];
-                int col = position.col() + direction[1];
-                // Ensure the new position is within the bounds of the board
-                if (row >= 0 && row < 8 && col >= 0 && col < 8) {
-                    Position pos = new Position(row, col);
-                    // Check if the position contains a disc that is owned by the opponent
-                    if (getDiscAtPosition(pos) != null && !getDiscAtPosition(pos).getOwner().equals(currentPlayer)) {
-                        // If the disc is a regular disc, add it to the list of discs to flip
-                        if (getDiscAtPosition(pos).getType().equals("⬤")) {
-                            if (!toFlipBomb.contains(pos)) {
-                                toFlipBomb.add(pos);
-                            }
-                        }
-                        // If the disc is another bomb, recursively continue flipping
-                        else if (getDiscAtPosition(pos).getType().equals("💣") && (pos.row() != position.row() || pos.col() != position.col())) {
-                            if (!toFlipBomb.contains(pos)) {
-                                toFlipBomb.add(pos);
-                            }
-                            // Recursively call bombFlip to handle the new bomb's effect
-                            if (!haveBeenHere.contains(pos))
-                                bombFlip(pos);
-                        }
-                    }
-                }
-            }
-
+        if (board[position.row()][position.col()] == null) return toFlipBomb;
+        long opponent = bitBoard.discs(!isFirstPlayerTurn());
+        long flips = BitBoard.bombChain(BitBoard.bit(position.square()),
+                opponent & ~bitBoard.unflippables(), bitBoard.bombs());
+        for (; flips != 0; flips &= flips - 1) {
+            int square = Long.numberOfTrailingZeros(flips);
+            toFlipBomb.add(Position.of(square));
         }
-        // Return the final list of discs to be flipped due to the bomb's effect
         return toFlipBomb;
     }
 
+    /**
+     * Places a disc on the square with the given index (row * 8 + column).
+     *
+     * @param square the square index.
+     * @param disc   the disc to place.
+     * @return {true} if the move was successful, {false} otherwise.
+     */
+    @Override
+    public boolean locate_disc(int square, Disc disc) {
+        return locate_disc(Position.of(square), disc);
+    }
+
     /**
      * Gets the disc at a specific position on the board.
      *
      * @param position the position to check.
-     * @return the disc at the given position, or {null} if no disc is there.
+     * @return the disc at the given position, or {@code null} if no disc is there.
      */
     @Override
     public Disc getDiscAtPosition(Position position) {
         return board[position.row()][position.col()];
     }
 
+    /**
+     * Gets the disc on the square with the given index (row * 8 + column), without creating a position.
+     *
+     * @param square the square index.
+     * @return the disc on the square, or {@code null} if no disc is there.
+     */
+    @Override
+    public Disc getDiscAtPosition(int square) {
+        return board[square / BitBoard.SIZE][square % BitBoard.SIZE];
+    }
+
     /**
      * Returns the size of the board (assumed to be 8x8).
      *
@@ -168,15 +186,13 @@ public class GameLogic implements PlayableLogic {
     @Override
     public List<Position> ValidMoves() {
         List<Position> legalMoves = new ArrayList<>();
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board.length; j++) {
-                Position position = new Position(i, j);
-                if (board[i][j] == null && isValidPos(position) > 0) {
-                    legalMoves.add(position);
-                }
-            }
+        // Walk the set bits of the legal move mask, lowest square first (row-major order)
+        long moves = bitBoard.legalMoves(isFirstPlayerTurn());
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            legalMoves.add(Position.of(square));
+            moves &= moves - 1;
         }
-
         return legalMoves;
     }
 
@@ -188,84 +204,29 @@ public class GameLogic implements PlayableLogic {
      */
 
     public int isValidPos(Position position) {
-        // Initialize the list to hold discs that should be flipped due to the move
-        toFlipFinal = new ArrayList<>();
-        List<Position> toFlip = new ArrayList<>();
-        // Check if the position is already occupied by a disc
-        if (board[position.row()][position.col()] != null) {
-            return 0;// The move is invalid if the position is already occupied
-        }
-        // Iterate over all directions to check if any opponent's discs are in between
-        for (int[] direction : DIRECTIONS) {
-            toFlip.clear();// Clear the temporary list of positions to flip
-            List<Position> tempFlips = new ArrayList<>();
-            int row = position.row() + direction[0];// Calculate the row in the given direction
-            int col = position.col() + direction[1];// Calculate the column in the given direction
-            boolean foundOpponentDisc = false;
-            // Check positions in the current direction
-            while (row >= 0 && row < board.length && col >= 0 && col < board[0].length) {
-                // If the position is empty, stop checking further in this direction
-                if (board[row][col] == null) {
-                    break;
-                }
-                // If the disc belongs to the opponent, add it to the list of discs to flip
-                if ((board[row][col].getOwner() != currentPlayer)) {
-                    if (!board[row][col].getType().equals("⭕")) {
-                        tempFlips.add(new Position(row, col));
-                        foundOpponentDisc = true;
-                    }
-                }
-                // If a disc of the current player is found after opponent's discs, the move is valid and we add the opponent's discs to flip
-                else if (foundOpponentDisc) {
-                    toFlip.addAll(tempFlips);
-                    break;
-                    // Valid move found, exit the loop and check the other directions
-                }
-                // If a disc of the current player is found immediately without any opponent discs in between, break the loop
-                else {
-                    break;
-                }
-                // Move to the next position in the current direction
-
-                row += direction[0];
-                col += direction[1];
-            }
-            // Add the found discs to flip in the current direction to the final list
-            toFlipFinal.addAll(toFlip);
-        }
-        // Boolean board to track which positions have been visited during the bomb flip process
-        boolean[][] booleanBoard = new boolean[8][8];
-        List<Position> newPos = new ArrayList<>();
-        // Mark the positions to be flipped on the boolean board
-        for (Position position1 : toFlipFinal) {
-            if (getDiscAtPosition(position1) != null) {
-                booleanBoard[position1.row()][position1.col()] = true;
-            }
-        }
-        // Check for bomb discs and handle their effect
-        for (Position position1 : toFlipFinal) {
-            if (getDiscAtPosition(position1) != null && getDiscAtPosition(position1).getType().equals("💣")) {
-                toFlipBomb.clear();// Clear any previously identified bombs
-                haveBeenHere.clear();// Clear visited positions for bomb flip
-                // Perform the bomb flip and add resulting flips to the list
-                List<Position> toFlipBombs = bombFlip(position1);
-                if (toFlipBombs != null && toFlipFinal != null && !toFlipBombs.isEmpty()) {
-
-                    for (int i = 0; i < toFlipBombs.size(); i++) {
-                        // If the bomb's flip results in a valid position, add it to the final flip list
-                        if (!booleanBoard[toFlipBombs.get(i).row()][toFlipBombs.get(i).col()]
-                                && !board[toFlipBombs.get(i).row()][toFlipBombs.get(i).col()].getOwner().equals(currentPlayer)) {
-                            newPos.add(toFlipBombs.get(i));
-                            booleanBoard[toFlipBombs.get(i).row()][toFlipBombs.get(i).col()] = true;
-                        }
-                    }
-                }
-            }
-        }
-        // Add the bomb flip results to the final list of positions to flip
-        toFlipFinal.addAll(newPos);
         // Return the total number of discs to be flipped
-        return toFlipFinal.size();
+        return probe(position, DiscKind.SIMPLE).count();
+    }
+
+    /**
+     * Computes what placing a disc of the given kind at a position would do, without changing the game.
+     * The probe only reads the board and the inventory of the player to move and keeps no state
+     * between calls, so several probes may run at the same time as long as no move is being played.
+     *
+     * @param position the position to probe.
+     * @param kind     the kind of disc that would be placed.
+     * @return the discs that would be flipped (bomb chains included) and whether the move may be played.
+     */
+    public FlipResult probe(Position position, DiscKind kind) {
+        boolean playerOne = isFirstPlayerTurn();
+        // Compute the flipped squares, including bomb chains, with direction sweeps on the bitboard
+        long flips = bitBoard.flips(position.square(), playerOne);
+        boolean available = switch (kind) {
+            case SIMPLE -> true;
+            case BOMB -> currentPlayer.getNumber_of_bombs() > 0;
+            case UNFLIPPABLE -> currentPlayer.getNumber_of_unflippedable() > 0;
+        };
+        return new FlipResult(position, kind, flips, available);
     }
 
     /**
@@ -280,8 +241,19 @@ public class GameLogic implements PlayableLogic {
      */
     @Override
     public int countFlips(Position a) {
-        int ret = isValidPos(a);
-        return ret;
+        return probe(a, DiscKind.SIMPLE).count();
+    }
+
+    /**
+     * Counts the discs that a simple disc placed on the square with the given index (row * 8 + column) would flip,
+     * without creating a position.
+     *
+     * @param square the square index.
+     * @return the number of discs that would be flipped, or 0 if the move is not valid.
+     */
+    @Override
+    public int countFlips(int square) {
+        return Long.bitCount(bitBoard.flips(square, isFirstPlayerTurn()));
     }
 
     /**
@@ -357,10 +329,11 @@ public class GameLogic implements PlayableLogic {
         if (ValidMoves().isEmpty()) {
             if (isFirstPlayerTurn()) {
                 getSecondPlayer().addWin();
-                System.out.println("Player 2 wins with " + count2 + " discs! Player 1 had " + count1 + " discs.");
             } else {
                 getFirstPlayer().addWin();
-                System.out.println("Player 1 wins with " + count1 + " discs! Player 2 had " + count2 + " discs.");
+            }
+            if (eventSink.accepts(speculative)) {
+                eventSink.accept(GameEvent.gameOver(gameId, moveHistory.size(), !isFirstPlayerTurn(), speculative, count1, count2));
             }
             return true;
         }
@@ -374,15 +347,17 @@ public class GameLogic implements PlayableLogic {
     @Override
     public void reset() {
         board = new Disc[8][8];
-        board[4][4] = new SimpleDisc(getFirstPlayer());
-        board[3][3] = new SimpleDisc(getFirstPlayer());
-        board[3][4] = new SimpleDisc(getSecondPlayer());
-        board[4][3] = new SimpleDisc(getSecondPlayer());
+        board[4][4] = getFirstPlayer().disc(DiscKind.SIMPLE);
+        board[3][3] = getFirstPlayer().disc(DiscKind.SIMPLE);
+        board[3][4] = getSecondPlayer().disc(DiscKind.SIMPLE);
+        board[4][3] = getSecondPlayer().disc(DiscKind.SIMPLE);
+        bitBoard.reset();
         currentPlayer = player1;
         player1.reset_bombs_and_unflippedable();
         player2.reset_bombs_and_unflippedable();
         moveHistory.clear();
-        toFlipBomb.clear();
+        redoHistory.clear();
+        gameId = GAME_IDS.incrementAndGet();
     }
 
     /**
@@ -390,68 +365,153 @@ public class GameLogic implements PlayableLogic {
      * This method reverts the board state to what it was before the most recent move
      * by undoing the placement of the last disc and any flips that were made.
      * It also restores the count of bombs or unflippable discs for the current player.
-     * After undoing the move, the method switches the player to the previous one and updates the board accordingly.
+     * After undoing the move, the method switches the player to the previous one.
      * <p>
      * The process includes:
-     * 1. Reverting the position of the last disc placed.
+     * 1. Removing the last disc placed.
      * 2. Returning any bomb or unflippable discs back to the current player's inventory.
-     * 3. Reverting any flipped discs that were flipped as a result of the last move.
-     * 4. Restoring the game state by replaying the previous moves.
-     * 5. If no move exists to undo, a message will indicate that no previous move is available.
+     * 3. Flipping back the discs recorded in the move when it was played.
+     * 4. Keeping the move so it can be replayed by {@link #redoLastMove()}.
+     * 5. If no move exists to undo, an undo event without a square tells the event sink.
+     * <p>
+     * The work done is proportional to the number of discs the move flipped, not to the length of the game.
      */
     @Override
     public void undoLastMove() {
-        System.out.println("Undoing last move");
+        boolean log = eventSink.accepts(speculative);
         // Check if there are any moves in history to undo
         if (!moveHistory.isEmpty()) {
             // Switch player before undoing the move
             switchPlayer();
-            // If the last disc placed was a bomb, increase the number of bombs for the current player
-            if (moveHistory.getLast().disc().getType().equals("💣")) {
-                currentPlayer.number_of_bombs++;
-            }
-            // If the last disc placed was unflippable, increase the number of unflippable discs for the current player
-            if (moveHistory.getLast().disc().getType().equals("⭕")) {
-                currentPlayer.number_of_unflippedable++;
-            }
-            // Print the details of the last move being undone
-            System.out.println("\tUndo: removing " + moveHistory.getLast().disc().getType() +
-                    " from (" + moveHistory.getLast().position().row() + "," + moveHistory.getLast().position().col() + ")");
             // Retrieve the last move and remove it from the history
-            Move move1 = moveHistory.getLast();
-            moveHistory.removeLast();
-            // Reset the board to the initial state before any moves were made
-            board = new Disc[8][8];
-            board[4][4] = new SimpleDisc(getFirstPlayer());
-            board[3][3] = new SimpleDisc(getFirstPlayer());
-            board[3][4] = new SimpleDisc(getSecondPlayer());
-            board[4][3] = new SimpleDisc(getSecondPlayer());
-            // Set the current player to player1
-            currentPlayer = player1;
-            // Replay all previous moves, placing discs and flipping accordingly
-            for (Move move : moveHistory) {
-                isValidPos(move.position());  // Check if the position of each move is valid
-                // Set the owner of the disc and place it on the board
-                move.disc().setOwner(currentPlayer);
-                move.makeMove(board, move.position(), move.disc());
-                // Flip any discs as a result of the move
-                for (Position position : toFlipFinal) {
-                    board[position.row()][position.col()].setOwner(currentPlayer);
+            Move move = moveHistory.removeLast();
+            Position a = move.position();
+            // If the last disc placed was a bomb or unflippable, give it back to the current player
+            DiscKind kind = move.disc().kind();
+            switch (kind) {
+                case BOMB -> currentPlayer.number_of_bombs++;
+                case UNFLIPPABLE -> currentPlayer.number_of_unflippedable++;
+                default -> {
                 }
-                // Switch the player after each move
-                switchPlayer();
             }
-            // Check the validity of the last move's position again
-            isValidPos(move1.position());
-            // Print out the discs that were flipped back as part of undoing the last move
-            for (Position position : toFlipFinal) {
-                System.out.println("\tUndo: flipping back " + getDiscAtPosition(position).getType() + " in (" + position.row() + "," + position.col() + ")");
+            // Report the last move being undone and remove the disc
+            if (log) {
+                eventSink.accept(GameEvent.disc(gameId, GameEvent.Type.UNDO, moveHistory.size(), isFirstPlayerTurn(),
+                        kind, a.square(), speculative));
             }
+            board[a.row()][a.col()] = null;
+            // Give the flipped discs back to the opponent
+            Player opponent = (currentPlayer == player1) ? player2 : player1;
+            for (long flips = move.flipped(); flips != 0; flips &= flips - 1) {
+                int square = Long.numberOfTrailingZeros(flips);
+                DiscKind flipped = board[square / BitBoard.SIZE][square % BitBoard.SIZE].kind();
+                board[square / BitBoard.SIZE][square % BitBoard.SIZE] = opponent.disc(flipped);
+                if (log) {
+                    eventSink.accept(GameEvent.disc(gameId, GameEvent.Type.FLIP_BACK, moveHistory.size(), !isFirstPlayerTurn(),
+                            flipped, square, speculative));
+                }
+            }
+            bitBoard.undo(a.square(), isFirstPlayerTurn(), move.flipped());
+            redoHistory.push(move);
         } else {
-            // If no previous move exists to undo, print a message indicating this
-            System.out.println("\tNo previous move available to undo.");
+            // If no previous move exists to undo, report an undo of nothing
+            if (log) {
+                eventSink.accept(GameEvent.disc(gameId, GameEvent.Type.UNDO, 0, isFirstPlayerTurn(), null, -1, speculative));
+            }
+        }
+    }
+
+    /**
+     * Replays the most recently undone move.
+     * The move is replayed from the flips recorded when it was first played, so no legality check is needed.
+     *
+     * @return {@code true} if a move was replayed, {@code false} if there was nothing to redo.
+     */
+    public boolean redoLastMove() {
+        boolean log = eventSink.accepts(speculative);
+        if (redoHistory.isEmpty()) {
+            if (log) {
+                eventSink.accept(GameEvent.disc(gameId, GameEvent.Type.REDO, moveHistory.size(), isFirstPlayerTurn(), null, -1, speculative));
+            }
+            return false;
         }
+        Move move = redoHistory.pop();
+        if (log) {
+            Position a = move.position();
+            eventSink.accept(GameEvent.disc(gameId, GameEvent.Type.REDO, moveHistory.size(), isFirstPlayerTurn(),
+                    move.disc().kind(), a.square(), speculative));
+        }
+        applyMove(move);
+        return true;
     }
+
+    /**
+     * Takes an immutable snapshot of the current position, including both players' remaining special discs.
+     * The snapshot is independent of this game and can be searched on without affecting it.
+     *
+     * @return the current game state.
+     */
+    public GameState snapshot() {
+        return GameState.of(bitBoard, isFirstPlayerTurn(),
+                player1.getNumber_of_bombs(), player1.getNumber_of_unflippedable(),
+                player2.getNumber_of_bombs(), player2.getNumber_of_unflippedable());
+    }
+
+    /**
+     * Returns the moves played so far in the compact form of a {@link GameRecord}: one {@link GameState} encoded
+     * move per byte, oldest first. Undone moves are not included.
+     *
+     * @return the moves.
+     */
+    public byte[] moveRecord() {
+        byte[] moves = new byte[moveHistory.size()];
+        for (int ply = 0; ply < moves.length; ply++) {
+            Move move = moveHistory.get(ply);
+            moves[ply] = (byte) GameState.move(move.position().square(), move.disc().kind());
+        }
+        return moves;
+    }
+
+    /**
+     * Sets where the events of this game go. New games use the sink chosen by the {@code reversi.events}
+     * system property (see {@link GameEventSink#configured()}), which is {@link GameEventSink#NONE} by default.
+     *
+     * @param eventSink the sink, or {@link GameEventSink#NONE} for no events.
+     */
+    public void setEventSink(GameEventSink eventSink) {
+        this.eventSink = Objects.requireNonNull(eventSink);
+    }
+
+    /**
+     * Marks the moves played from now on as a search's look-ahead rather than real game moves, or back.
+     * Their events are flagged as speculative and most sinks drop them before they are built.
+     *
+     * @param speculative {@code true} while a search plays and undoes moves on this game.
+     */
+    public void setSpeculative(boolean speculative) {
+        this.speculative = speculative;
+    }
+
+    /**
+     * Returns the number of this game in its events. Each {@link #reset()} gives the game a new number,
+     * unique within the program.
+     *
+     * @return the game number.
+     */
+    public long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Sets the number of this game in its events, e.g. to the game's number in a tournament.
+     * The next {@link #reset()} replaces it.
+     *
+     * @param gameId the game number.
+     */
+    public void setGameId(long gameId) {
+        this.gameId = gameId;
+    }
+
     public Player getCurrentPlayer(){
         return currentPlayer;
     }
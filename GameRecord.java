@@ -0,0 +1,172 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A finished game in the compact form stored in game record files: who played, with which seeds,
+ * the final disc counts and the moves.
+ * <p>
+ * Each move takes one byte, the encoded move of {@link GameState} (the square in the low 6 bits,
+ * the disc kind above it). Players never pass in this game, so the moves alternate from player 1,
+ * and replaying them from the initial position rebuilds every position of the game.
+ * <p>
+ * In a file, a record is its length (unsigned short) followed by, little-endian:
+ * <pre>
+ *   player 1 name, player 2 name    each a length byte and UTF-8 text
+ *   player 1 seed, player 2 seed    longs
+ *   player 1 discs, player 2 discs  bytes
+ *   moves                           one byte each, up to the end of the record
+ * </pre>
+ * Files are written by {@link GameRecordWriter} and read by {@link GameRecordReader}.
+ *
+ * @param player1 the type of player 1, e.g. the AI class name.
+ * @param player2 the type of player 2.
+ * @param seed1   the seed of player 1, or 0.
+ * @param seed2   the seed of player 2, or 0.
+ * @param discs1  the discs of player 1 at the end of the game.
+ * @param discs2  the discs of player 2 at the end of the game.
+ * @param moves   the moves, one encoded move per byte.
+ */
+public record GameRecord(String player1, String player2, long seed1, long seed2, int discs1, int discs2, byte[] moves) {
+    // Longest name a record can hold, in UTF-8 bytes
+    static final int MAX_NAME_BYTES = 255;
+    // Longest record body the unsigned short length prefix allows
+    static final int MAX_BYTES = 0xFFFF;
+
+    /**
+     * Records a game played on a {@link GameLogic}.
+     *
+     * @param game    the game, usually finished.
+     * @param player1 the type of player 1.
+     * @param player2 the type of player 2.
+     * @param seed1   the seed of player 1, or 0.
+     * @param seed2   the seed of player 2, or 0.
+     * @return the record.
+     */
+    public static GameRecord of(GameLogic game, String player1, String player2, long seed1, long seed2) {
+        GameState end = game.snapshot();
+        return new GameRecord(player1, player2, seed1, seed2, end.discCount(true), end.discCount(false), game.moveRecord());
+    }
+
+    /**
+     * Returns the number of moves of the game.
+     *
+     * @return the move count.
+     */
+    public int moveCount() {
+        return moves.length;
+    }
+
+    /**
+     * Returns a move of the game.
+     *
+     * @param ply the move number, from 0.
+     * @return the encoded move.
+     */
+    public int move(int ply) {
+        return moves[ply] & 0xFF;
+    }
+
+    /**
+     * Returns the result of the game for player 1.
+     *
+     * @return player 1's discs minus player 2's discs.
+     */
+    public int margin() {
+        return discs1 - discs2;
+    }
+
+    /**
+     * Replays the game from the initial position.
+     *
+     * @return the final position.
+     * @throws IllegalArgumentException if a move is not legal.
+     */
+    public GameState replay() {
+        GameState state = GameState.initial();
+        for (int ply = 0; ply < moves.length; ply++) {
+            int move = move(ply);
+            if (!state.isLegal(move)) throw new IllegalArgumentException("Illegal move " + Perft.formatMove(move) + " at ply " + ply);
+            state = state.play(move);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the number of bytes the record takes in a file, length prefix included.
+     *
+     * @return the encoded size.
+     * @throws IllegalArgumentException if a name or the whole record is too long for the format.
+     */
+    int encodedSize() {
+        int size = Short.BYTES + nameBytes(player1).length + nameBytes(player2).length + 2 + 2 * Long.BYTES + 2 + moves.length;
+        if (size - Short.BYTES > MAX_BYTES) throw new IllegalArgumentException("Game record too long: " + size + " bytes");
+        return size;
+    }
+
+    /**
+     * Writes the record, length prefix included, at the position of a little-endian buffer.
+     *
+     * @param buffer the buffer, with at least {@link #encodedSize()} bytes remaining.
+     */
+    void writeTo(ByteBuffer buffer) {
+        byte[] name1 = nameBytes(player1);
+        byte[] name2 = nameBytes(player2);
+        buffer.putShort((short) (encodedSize() - Short.BYTES));
+        buffer.put((byte) name1.length).put(name1).put((byte) name2.length).put(name2);
+        buffer.putLong(seed1).putLong(seed2);
+        buffer.put((byte) discs1).put((byte) discs2);
+        buffer.put(moves);
+    }
+
+    /**
+     * Reads a record body.
+     *
+     * @param buffer a little-endian buffer.
+     * @param offset where the body starts, after the length prefix.
+     * @param length the length of the body.
+     * @return the record.
+     * @throws IllegalArgumentException if the body is malformed.
+     */
+    static GameRecord readFrom(ByteBuffer buffer, int offset, int length) {
+        int end = offset + length;
+        int position = offset;
+        int length1 = buffer.get(position++) & 0xFF;
+        String name1 = readName(buffer, position, length1, end);
+        position += length1;
+        int length2 = buffer.get(position++) & 0xFF;
+        String name2 = readName(buffer, position, length2, end);
+        position += length2;
+        if (position + 2 * Long.BYTES + 2 > end) throw new IllegalArgumentException("Truncated game record");
+        long seed1 = buffer.getLong(position);
+        long seed2 = buffer.getLong(position + Long.BYTES);
+        position += 2 * Long.BYTES;
+        int discs1 = buffer.get(position++) & 0xFF;
+        int discs2 = buffer.get(position++) & 0xFF;
+        byte[] moves = new byte[end - position];
+        buffer.get(position, moves);
+        return new GameRecord(name1, name2, seed1, seed2, discs1, discs2, moves);
+    }
+
+    /**
+     * Returns the number of moves of the record body at an offset, without decoding the rest.
+     */
+    static int moveCount(ByteBuffer buffer, int offset, int length) {
+        int position = offset;
+        position += 1 + (buffer.get(position) & 0xFF);
+        position += 1 + (buffer.get(position) & 0xFF);
+        return offset + length - position - 2 * Long.BYTES - 2;
+    }
+
+    private static String readName(ByteBuffer buffer, int position, int length, int end) {
+        if (position + length > end) throw new IllegalArgumentException("Truncated game record");
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] nameBytes(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) throw new IllegalArgumentException("Player name too long: " + name);
+        return bytes;
+    }
+}
@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads a game record file written by {@link GameRecordWriter}, with random access to its games.
+ * <p>
+ * The file is memory-mapped and indexed once when it is opened: the index walks the length prefixes only, so
+ * opening a file of millions of games is fast, and the games are decoded when asked for. Files larger than
+ * a single mapping are mapped in regions of up to 1 GB, each starting at a record. A record cut short at the end
+ * of the file, by a writer that crashed, is ignored.
+ * <p>
+ * The reader is immutable once opened and can be shared between threads.
+ * <p>
+ * Usage: {@code java GameRecordReader <file> [game]}; prints a summary of the file, or the moves of one game.
+ */
+public class GameRecordReader {
+    // Largest region mapped at once
+    private static final long REGION_BYTES = 1L << 30;
+
+    private final List<ByteBuffer> regions = new ArrayList<>();
+    // Per game: the region holding it and the offset of its length prefix in that region
+    private int[] regionOf = new int[1024];
+    private int[] offsets = new int[1024];
+    private int size;
+    private long validLength;
+
+    private GameRecordReader() {
+    }
+
+    /**
+     * Maps and indexes a game record file.
+     *
+     * @param file the file.
+     * @return the reader.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a game record file.
+     */
+    public static GameRecordReader open(Path file) throws IOException {
+        GameRecordReader reader = new GameRecordReader();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            reader.index(channel);
+        }
+        return reader;
+    }
+
+    private void index(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer region = map(channel, 0, fileSize);
+        if (fileSize < GameRecordWriter.HEADER_BYTES || region.getInt(0) != GameRecordWriter.MAGIC) {
+            throw new IllegalArgumentException("Not a game record file");
+        }
+        if (region.getInt(4) != GameRecordWriter.VERSION) {
+            throw new IllegalArgumentException("Unsupported game record version " + region.getInt(4));
+        }
+        long regionStart = 0;
+        long position = GameRecordWriter.HEADER_BYTES;
+        while (position + Short.BYTES <= fileSize) {
+            if (position + Short.BYTES > regionStart + region.capacity()) {
+                regionStart = position;
+                region = map(channel, regionStart, fileSize);
+            }
+            int length = region.getShort((int) (position - regionStart)) & 0xFFFF;
+            long end = position + Short.BYTES + length;
+            if (end > fileSize) break;
+            if (end > regionStart + region.capacity()) {
+                regionStart = position;
+                region = map(channel, regionStart, fileSize);
+            }
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                regionOf = Arrays.copyOf(regionOf, size * 2);
+            }
+            regionOf[size] = regions.size() - 1;
+            offsets[size] = (int) (position - regionStart);
+            size++;
+            position = end;
+        }
+        validLength = position;
+    }
+
+    private ByteBuffer map(FileChannel channel, long start, long fileSize) throws IOException {
+        ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_BYTES, fileSize - start))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        regions.add(region);
+        return region;
+    }
+
+    /**
+     * Returns the number of complete games in the file.
+     *
+     * @return the game count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the length of the file up to the end of its last complete game.
+     *
+     * @return the length in bytes.
+     */
+    long validLength() {
+        return validLength;
+    }
+
+    /**
+     * Decodes a game.
+     *
+     * @param index the game number, from 0.
+     * @return the game.
+     * @throws IndexOutOfBoundsException if there is no such game.
+     * @throws IllegalArgumentException  if the record is malformed.
+     */
+    public GameRecord get(int index) {
+        ByteBuffer region = region(index);
+        int offset = offsets[index];
+        return GameRecord.readFrom(region, offset + Short.BYTES, region.getShort(offset) & 0xFFFF);
+    }
+
+    /**
+     * Returns the number of moves of a game without decoding it.
+     *
+     * @param index the game number, from 0.
+     * @return the move count.
+     */
+    public int moveCount(int index) {
+        ByteBuffer region = region(index);
+        int offset = offsets[index];
+        return GameRecord.moveCount(region, offset + Short.BYTES, region.getShort(offset) & 0xFFFF);
+    }
+
+    private ByteBuffer region(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("No game " + index + " of " + size);
+        return regions.get(regionOf[index]);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java GameRecordReader <file> [game]");
+            System.exit(2);
+        }
+        GameRecordReader reader = open(Path.of(args[0]));
+        if (args.length > 1) {
+            GameRecord game = reader.get(Integer.parseInt(args[1]));
+            StringBuilder moves = new StringBuilder();
+            for (int ply = 0; ply < game.moveCount(); ply++) moves.append(' ').append(Perft.formatMove(game.move(ply)));
+            System.out.printf(Locale.ROOT, "%s (seed %d) vs %s (seed %d): %d-%d%n%s%n", game.player1(), game.seed1(),
+                    game.player2(), game.seed2(), game.discs1(), game.discs2(), moves.toString().trim());
+            return;
+        }
+        long start = System.nanoTime();
+        long moves = 0;
+        int wins1 = 0, wins2 = 0;
+        for (int i = 0; i < reader.size(); i++) {
+            GameRecord game = reader.get(i);
+            moves += game.moveCount();
+            if (game.margin() > 0) wins1++;
+            else if (game.margin() < 0) wins2++;
+        }
+        System.out.printf(Locale.ROOT, "%d games, %d moves; player 1 wins %d, player 2 wins %d, draws %d; read in %.1f ms%n",
+                reader.size(), moves, wins1, wins2, reader.size() - wins1 - wins2, (System.nanoTime() - start) / 1e6);
+    }
+}
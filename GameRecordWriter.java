@@ -0,0 +1,96 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends {@link GameRecord}s to a game record file.
+ * <p>
+ * A file starts with an 8-byte header, the magic "RVGR" and the format version (little-endian ints), followed by
+ * the length-prefixed records. Records are only ever appended: opening an existing file keeps its games and
+ * drops a record cut short by a crash. Records are buffered and written in large blocks; the writer is
+ * thread-safe and a record is always written whole.
+ */
+public class GameRecordWriter implements AutoCloseable {
+    static final int MAGIC = 0x52564752;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    // Size of the write buffer; it holds at least one record of the largest size
+    private static final int BUFFER_BYTES = 1 << 17;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private long games;
+
+    /**
+     * Opens a game record file for appending, creating it if needed.
+     *
+     * @param file the file.
+     * @throws IOException              if the file cannot be opened.
+     * @throws IllegalArgumentException if the file exists but is not a game record file.
+     */
+    public GameRecordWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                buffer.putInt(MAGIC).putInt(VERSION);
+            } else {
+                // Drop a record the last writer did not finish, so the new ones follow the last complete record
+                long end = GameRecordReader.open(file).validLength();
+                channel.truncate(end);
+            }
+            channel.position(channel.size());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param record the game.
+     * @throws IOException              if the file cannot be written.
+     * @throws IllegalArgumentException if the record does not fit the format.
+     */
+    public synchronized void write(GameRecord record) throws IOException {
+        if (buffer.remaining() < record.encodedSize()) writeBuffer();
+        record.writeTo(buffer);
+        games++;
+    }
+
+    /**
+     * Returns the number of games written by this writer.
+     *
+     * @return the game count.
+     */
+    public synchronized long games() {
+        return games;
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized void flush() throws IOException {
+        writeBuffer();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            writeBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
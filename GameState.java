@@ -0,0 +1,375 @@
+/**
+ * An immutable snapshot of a game: the board, the player to move and both players' remaining
+ * bomb and unflippable discs.
+ * <p>
+ * Playing a move returns a new state and leaves this one untouched, so AI players can search
+ * on private copies while the real game keeps being shown by the GUI. The state holds no
+ * references to {@link Player} or {@link Disc} objects; moves are encoded as {@code int}s
+ * combining the square and the disc kind (see {@link #move(int, DiscKind)}).
+ * <p>
+ * Every state carries its {@link Zobrist} hash, updated incrementally by {@link #play(int, long)}.
+ */
+public final class GameState {
+    // Number of bits used by the square part of an encoded move
+    private static final int SQUARE_BITS = 6;
+    private static final DiscKind[] KINDS = DiscKind.values();
+
+    // Occupancy masks of the two players
+    private final long player1;
+    private final long player2;
+    // Squares holding bomb and unflippable discs (of either player)
+    private final long bombs;
+    private final long unflippables;
+    // The player to move
+    private final boolean playerOneToMove;
+    // Remaining special discs of each player
+    private final int bombs1;
+    private final int unflippables1;
+    private final int bombs2;
+    private final int unflippables2;
+    // Zobrist hash of all the fields above
+    private final long hash;
+
+    private GameState(long player1, long player2, long bombs, long unflippables, boolean playerOneToMove,
+                      int bombs1, int unflippables1, int bombs2, int unflippables2) {
+        this(player1, player2, bombs, unflippables, playerOneToMove, bombs1, unflippables1, bombs2, unflippables2,
+                Zobrist.hash(player1, player2, bombs, unflippables, playerOneToMove, bombs1, unflippables1, bombs2, unflippables2));
+    }
+
+    private GameState(long player1, long player2, long bombs, long unflippables, boolean playerOneToMove,
+                      int bombs1, int unflippables1, int bombs2, int unflippables2, long hash) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.bombs = bombs;
+        this.unflippables = unflippables;
+        this.playerOneToMove = playerOneToMove;
+        this.bombs1 = bombs1;
+        this.unflippables1 = unflippables1;
+        this.bombs2 = bombs2;
+        this.unflippables2 = unflippables2;
+        this.hash = hash;
+    }
+
+    /**
+     * Returns the starting position: four discs in the center, player 1 to move and full inventories.
+     *
+     * @return the initial state.
+     */
+    public static GameState initial() {
+        BitBoard board = new BitBoard();
+        board.reset();
+        return of(board, true, Player.initial_number_of_bombs, Player.initial_number_of_unflippedable,
+                Player.initial_number_of_bombs, Player.initial_number_of_unflippedable);
+    }
+
+    /**
+     * Builds a state from a bitboard and the players' inventories.
+     *
+     * @param board           the board to copy.
+     * @param playerOneToMove {@code true} if player 1 is to move.
+     * @param bombs1          bombs left to player 1.
+     * @param unflippables1   unflippable discs left to player 1.
+     * @param bombs2          bombs left to player 2.
+     * @param unflippables2   unflippable discs left to player 2.
+     * @return the new state.
+     */
+    public static GameState of(BitBoard board, boolean playerOneToMove,
+                               int bombs1, int unflippables1, int bombs2, int unflippables2) {
+        return new GameState(board.discs(true), board.discs(false), board.bombs(), board.unflippables(),
+                playerOneToMove, bombs1, unflippables1, bombs2, unflippables2);
+    }
+
+    /**
+     * Builds a state from any game through the {@link PlayableLogic} interface.
+     *
+     * @param game the game to snapshot.
+     * @return a state equal to the current position of the game.
+     */
+    public static GameState of(PlayableLogic game) {
+        if (game instanceof GameLogic logic) return logic.snapshot();
+        if (game instanceof SnapshotLogic snapshot) return snapshot.state();
+        long player1 = 0, player2 = 0, bombs = 0, unflippables = 0;
+        for (int square = 0; square < BitBoard.SIZE * BitBoard.SIZE; square++) {
+            Disc disc = game.getDiscAtPosition(square);
+            if (disc == null) continue;
+            long bit = BitBoard.bit(square);
+            if (disc.getOwner().isPlayerOne()) player1 |= bit;
+            else player2 |= bit;
+            DiscKind kind = disc.kind();
+            if (kind == DiscKind.BOMB) bombs |= bit;
+            if (kind == DiscKind.UNFLIPPABLE) unflippables |= bit;
+        }
+        Player first = game.getFirstPlayer();
+        Player second = game.getSecondPlayer();
+        return new GameState(player1, player2, bombs, unflippables, game.isFirstPlayerTurn(),
+                first.getNumber_of_bombs(), first.getNumber_of_unflippedable(),
+                second.getNumber_of_bombs(), second.getNumber_of_unflippedable());
+    }
+
+    /**
+     * Encodes a move as an {@code int}.
+     *
+     * @param square the square to play on.
+     * @param kind   the kind of disc to place.
+     * @return the encoded move.
+     */
+    public static int move(int square, DiscKind kind) {
+        return square | kind.ordinal() << SQUARE_BITS;
+    }
+
+    /**
+     * Returns the square of an encoded move.
+     *
+     * @param move the encoded move.
+     * @return the square index.
+     */
+    public static int square(int move) {
+        return move & ((1 << SQUARE_BITS) - 1);
+    }
+
+    /**
+     * Returns the disc kind of an encoded move.
+     *
+     * @param move the encoded move.
+     * @return the disc kind.
+     */
+    public static DiscKind kind(int move) {
+        return KINDS[move >>> SQUARE_BITS];
+    }
+
+    /**
+     * Converts an encoded move into a {@link Move} that can be returned by an {@link AIPlayer}.
+     *
+     * @param move   the encoded move.
+     * @param player the player placing the disc.
+     * @return the move with the player's shared disc of the encoded kind.
+     */
+    public static Move toMove(int move, Player player) {
+        return new Move(Position.of(square(move)), player.disc(kind(move)));
+    }
+
+    /**
+     * Returns the Zobrist hash of this state, covering the board, the player to move and both inventories.
+     *
+     * @return the 64-bit hash.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    public boolean isPlayerOneToMove() {
+        return playerOneToMove;
+    }
+
+    /**
+     * Returns the discs of one player.
+     *
+     * @param playerOne {@code true} for player 1, {@code false} for player 2.
+     * @return the occupancy mask.
+     */
+    public long discs(boolean playerOne) {
+        return playerOne ? player1 : player2;
+    }
+
+    public long bombs() {
+        return bombs;
+    }
+
+    public long unflippables() {
+        return unflippables;
+    }
+
+    /**
+     * Returns the empty squares.
+     *
+     * @return the mask of empty squares.
+     */
+    public long empty() {
+        return ~(player1 | player2);
+    }
+
+    /**
+     * Returns the number of empty squares.
+     *
+     * @return the empty square count.
+     */
+    public int empties() {
+        return Long.bitCount(empty());
+    }
+
+    /**
+     * Returns the number of bombs a player has left.
+     *
+     * @param playerOne {@code true} for player 1, {@code false} for player 2.
+     * @return the remaining bombs.
+     */
+    public int bombsLeft(boolean playerOne) {
+        return playerOne ? bombs1 : bombs2;
+    }
+
+    /**
+     * Returns the number of unflippable discs a player has left.
+     *
+     * @param playerOne {@code true} for player 1, {@code false} for player 2.
+     * @return the remaining unflippable discs.
+     */
+    public int unflippablesLeft(boolean playerOne) {
+        return playerOne ? unflippables1 : unflippables2;
+    }
+
+    /**
+     * Returns the squares the player to move can play on.
+     *
+     * @return a mask of the legal squares.
+     */
+    public long legalSquares() {
+        return BitBoard.legalMoves(discs(playerOneToMove), discs(!playerOneToMove), unflippables);
+    }
+
+    /**
+     * Computes the squares the player to move would flip by playing on a square.
+     *
+     * @param square the square to play on.
+     * @return the flipped squares, or 0 if the square is not a legal move.
+     */
+    public long flips(int square) {
+        return BitBoard.flips(square, discs(playerOneToMove), discs(!playerOneToMove), unflippables, bombs);
+    }
+
+    /**
+     * Checks whether the player to move still has a disc of the given kind.
+     *
+     * @param kind the disc kind.
+     * @return {@code true} if the kind can be placed.
+     */
+    public boolean hasDisc(DiscKind kind) {
+        return switch (kind) {
+            case SIMPLE -> true;
+            case BOMB -> bombsLeft(playerOneToMove) > 0;
+            case UNFLIPPABLE -> unflippablesLeft(playerOneToMove) > 0;
+        };
+    }
+
+    /**
+     * Checks whether an encoded move may be played.
+     *
+     * @param move the encoded move.
+     * @return {@code true} if the square flips at least one disc and the disc kind is available.
+     */
+    public boolean isLegal(int move) {
+        return hasDisc(kind(move)) && flips(square(move)) != 0;
+    }
+
+    /**
+     * Writes every legal move of the player to move into the buffer:
+     * each legal square with a simple disc, and with a bomb or unflippable disc while those are left.
+     *
+     * @param moves a buffer of at least {@code 3 * 64} entries.
+     * @return the number of moves written.
+     */
+    public int legalMoves(int[] moves) {
+        boolean bomb = hasDisc(DiscKind.BOMB);
+        boolean unflippable = hasDisc(DiscKind.UNFLIPPABLE);
+        int count = 0;
+        for (long squares = legalSquares(); squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            moves[count++] = move(square, DiscKind.SIMPLE);
+            if (bomb) moves[count++] = move(square, DiscKind.BOMB);
+            if (unflippable) moves[count++] = move(square, DiscKind.UNFLIPPABLE);
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the game is over. As in {@link GameLogic#isGameFinished()}, the game ends
+     * as soon as the player to move has no legal square.
+     *
+     * @return {@code true} if the player to move cannot play.
+     */
+    public boolean isGameOver() {
+        return legalSquares() == 0;
+    }
+
+    /**
+     * Returns the number of discs of one player.
+     *
+     * @param playerOne {@code true} for player 1, {@code false} for player 2.
+     * @return the disc count.
+     */
+    public int discCount(boolean playerOne) {
+        return Long.bitCount(discs(playerOne));
+    }
+
+    /**
+     * Returns the disc difference from the point of view of the player to move.
+     *
+     * @return own discs minus opponent discs.
+     */
+    public int discDifference() {
+        return discCount(playerOneToMove) - discCount(!playerOneToMove);
+    }
+
+    /**
+     * Plays a move and returns the resulting state. The move must be legal.
+     *
+     * @param move the encoded move.
+     * @return the state after the move, with the other player to move.
+     */
+    public GameState play(int move) {
+        return play(move, flips(square(move)));
+    }
+
+    /**
+     * Plays a move whose flipped squares were already computed and returns the resulting state.
+     *
+     * @param move  the encoded move.
+     * @param flips the squares flipped by the move, as returned by {@link #flips(int)}.
+     * @return the state after the move, with the other player to move.
+     */
+    public GameState play(int move, long flips) {
+        int square = square(move);
+        long placed = BitBoard.bit(square);
+        DiscKind kind = kind(move);
+        boolean me = playerOneToMove;
+        // Update the hash: the placed disc, the flipped discs changing owner and the side to move
+        long newHash = hash ^ Zobrist.side() ^ Zobrist.square(me, kind, square);
+        for (long s = flips; s != 0; s &= s - 1) {
+            int flipped = Long.numberOfTrailingZeros(s);
+            newHash ^= Zobrist.flip((bombs & BitBoard.bit(flipped)) != 0 ? DiscKind.BOMB : DiscKind.SIMPLE, flipped);
+        }
+        long newBombs = bombs;
+        long newUnflippables = unflippables;
+        int bombsLeft = bombsLeft(me);
+        int unflippablesLeft = unflippablesLeft(me);
+        if (kind == DiscKind.BOMB) {
+            newBombs |= placed;
+            newHash ^= Zobrist.bombs(me, bombsLeft) ^ Zobrist.bombs(me, bombsLeft - 1);
+            bombsLeft--;
+        } else if (kind == DiscKind.UNFLIPPABLE) {
+            newUnflippables |= placed;
+            newHash ^= Zobrist.unflippables(me, unflippablesLeft) ^ Zobrist.unflippables(me, unflippablesLeft - 1);
+            unflippablesLeft--;
+        }
+        if (me) {
+            return new GameState(player1 | placed | flips, player2 & ~flips, newBombs, newUnflippables, false,
+                    bombsLeft, unflippablesLeft, bombs2, unflippables2, newHash);
+        }
+        return new GameState(player1 & ~flips, player2 | placed | flips, newBombs, newUnflippables, true,
+                bombs1, unflippables1, bombsLeft, unflippablesLeft, newHash);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (!(object instanceof GameState other)) return false;
+        return hash == other.hash && player1 == other.player1 && player2 == other.player2 && bombs == other.bombs
+                && unflippables == other.unflippables && playerOneToMove == other.playerOneToMove
+                && bombs1 == other.bombs1 && unflippables1 == other.unflippables1
+                && bombs2 == other.bombs2 && unflippables2 == other.unflippables2;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+}
@@ -36,13 +36,13 @@ public class GreedyAI extends AIPlayer{
         // Define a comparator to compare moves based on the number of flipped discs
         // In case of a tie, compare by column, and then by row
         Comparator<Position> comparator = Comparator
-                .comparingInt(gameStatus::countFlips)
+                .comparingInt((Position p) -> gameStatus.countFlips(p))
                 .thenComparingInt(Position::col)
                 .thenComparingInt(Position::row);
         // Find the best move using the comparator
         Position bestMove = validMoves.stream().max(comparator).orElseThrow(() -> new IllegalStateException("No valid moves available"));
-        // Create a simple disc for the chosen move
-        Disc disc = new SimpleDisc(this);
+        // Play the chosen move with a simple disc
+        Disc disc = disc(DiscKind.SIMPLE);
         // Return the chosen move with the associated disc
         return new Move(bestMove, disc);
     }
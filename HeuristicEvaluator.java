@@ -0,0 +1,44 @@
+/**
+ * A hand-tuned evaluation function combining square values, mobility and special discs.
+ * Scores are in hundredths of a disc, so 100 is roughly worth one extra disc at the end of the game.
+ */
+public class HeuristicEvaluator implements Evaluator {
+    // Value of owning each square: corners are stable, squares next to them give corners away
+    static final int[] SQUARE_VALUES = {
+            400, -80, 40, 20, 20, 40, -80, 400,
+            -80, -120, -10, -10, -10, -10, -120, -80,
+            40, -10, 10, 5, 5, 10, -10, 40,
+            20, -10, 5, 0, 0, 5, -10, 20,
+            20, -10, 5, 0, 0, 5, -10, 20,
+            40, -10, 10, 5, 5, 10, -10, 40,
+            -80, -120, -10, -10, -10, -10, -120, -80,
+            400, -80, 40, 20, 20, 40, -80, 400
+    };
+    // Bonus per legal square more than the opponent
+    static final int MOBILITY = 60;
+    // Bonus per unflippable disc on the board, since it can never be lost
+    static final int UNFLIPPABLE_ON_BOARD = 120;
+    // Value of keeping a special disc in hand for later
+    static final int BOMB_IN_HAND = 40;
+    static final int UNFLIPPABLE_IN_HAND = 80;
+
+    @Override
+    public int evaluate(GameState state) {
+        boolean me = state.isPlayerOneToMove();
+        long own = state.discs(me);
+        long opp = state.discs(!me);
+        int empties = state.empties();
+        int score = 0;
+        for (long s = own; s != 0; s &= s - 1) score += SQUARE_VALUES[Long.numberOfTrailingZeros(s)];
+        for (long s = opp; s != 0; s &= s - 1) score -= SQUARE_VALUES[Long.numberOfTrailingZeros(s)];
+        // Mobility matters in the opening and middle game, the disc count near the end
+        int mobility = Long.bitCount(BitBoard.legalMoves(own, opp, state.unflippables()))
+                - Long.bitCount(BitBoard.legalMoves(opp, own, state.unflippables()));
+        score += mobility * MOBILITY * empties / 60;
+        score += (Long.bitCount(own) - Long.bitCount(opp)) * 100 * (60 - empties) / 60;
+        score += (Long.bitCount(own & state.unflippables()) - Long.bitCount(opp & state.unflippables())) * UNFLIPPABLE_ON_BOARD;
+        score += (state.bombsLeft(me) - state.bombsLeft(!me)) * BOMB_IN_HAND;
+        score += (state.unflippablesLeft(me) - state.unflippablesLeft(!me)) * UNFLIPPABLE_IN_HAND;
+        return score;
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Writes game events as JSON lines: one JSON object per event, one event per line, e.g.
+ * <pre>{"game":7,"type":"place","ply":4,"player":1,"kind":"bomb","square":19,"row":2,"col":3,"speculative":false}</pre>
+ * Game over events carry the disc counts as {@code "discs1"} and {@code "discs2"} instead of a square,
+ * with the winner as {@code "player"}. The game number tells apart the events of games written to one file.
+ * <p>
+ * The output is buffered; wrap the sink in an {@link AsyncEventSink} to move the writing off the game's thread.
+ */
+public class JsonLinesEventSink implements GameEventSink {
+    private final Writer out;
+    private final boolean speculative;
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * Creates a sink writing the events of real game moves to the given writer.
+     *
+     * @param out the writer; it is closed with the sink.
+     */
+    public JsonLinesEventSink(Writer out) {
+        this(out, false);
+    }
+
+    /**
+     * Creates a sink writing to the given writer.
+     *
+     * @param out         the writer; it is closed with the sink.
+     * @param speculative whether to also write the events of moves played by a search.
+     */
+    public JsonLinesEventSink(Writer out, boolean speculative) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        this.speculative = speculative;
+    }
+
+    /**
+     * Creates a sink writing the events of real game moves to a file, replacing its content.
+     *
+     * @param file the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public JsonLinesEventSink(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean accepts(boolean speculative) {
+        return this.speculative || !speculative;
+    }
+
+    @Override
+    public synchronized void accept(GameEvent event) {
+        line.setLength(0);
+        line.append("{\"game\":").append(event.game())
+                .append(",\"type\":\"").append(event.type().name().toLowerCase(Locale.ROOT))
+                .append("\",\"ply\":").append(event.ply())
+                .append(",\"player\":").append(event.playerOne() ? 1 : 2);
+        if (event.kind() != null) {
+            line.append(",\"kind\":\"").append(event.kind().name().toLowerCase(Locale.ROOT)).append('"');
+        }
+        if (event.square() >= 0) {
+            line.append(",\"square\":").append(event.square())
+                    .append(",\"row\":").append(event.row())
+                    .append(",\"col\":").append(event.col());
+        }
+        if (event.type() == GameEvent.Type.GAME_OVER) {
+            line.append(",\"discs1\":").append(event.discs1()).append(",\"discs2\":").append(event.discs2());
+        }
+        line.append(",\"speculative\":").append(event.speculative()).append("}\n");
+        try {
+            out.append(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An AI player using Monte Carlo tree search: it plays many random games (playouts) from the current position,
+ * grows a tree of the positions they go through and plays the move whose subtree was explored the most.
+ * <p>
+ * Moves in the tree are chosen with UCT: the win rate of a move plus an exploration bonus for moves tried less often.
+ * Every disc kind the player has left is a separate move, as in the {@link SearchEngine}. Playouts pick a random
+ * legal square and mostly place simple discs, keeping the special discs for the moves chosen in the tree.
+ * A playout scores 1 for a win, one half for a draw and 0 for a loss.
+ * <p>
+ * The search uses tree parallelism: several threads grow one shared tree. A thread going down the tree adds a
+ * virtual loss to every node on its way until its playout returns, which steers the other threads to other
+ * branches. Between moves, the subtree of the position reached after the opponent's reply is kept and the search
+ * continues from it, so the playouts already spent on that position are recycled.
+ * <p>
+ * For comparisons at equal CPU, the budget uses the same system properties as {@link AlphaBetaAI}:
+ * {@code reversi.search.millis} (default 500) per move, {@code reversi.search.nodes} (default unlimited) positions
+ * visited per move, counting the steps down the tree and the moves of the playouts, and
+ * {@code reversi.search.threads} (default 1) threads. A move without any time, node or playout budget is refused.
+ * A playout budget can be set with {@code reversi.mcts.playouts} (default unlimited), the largest number of nodes
+ * added per move with {@code reversi.mcts.nodes} (default 1000000) and the exploration constant with
+ * {@code reversi.mcts.exploration} (default 1.0).
+ *
+ * @see AIPlayer
+ */
+public class MCTSAI extends AIPlayer {
+    // Losses added to a node while a thread's playout through it is running
+    private static final int VIRTUAL_LOSS = 1;
+    // Chance that a playout move places a special disc, when the player has one left
+    private static final double SPECIAL_DISC_RATE = 0.125;
+
+    /**
+     * A node of the search tree: a position, the move that led to it and the results of the playouts through it.
+     * Wins are counted for the player who made the move, so a parent picks the child with the most wins.
+     * <p>
+     * The visits and the points are packed into one {@code long} that is only changed atomically, so threads read
+     * them without locks and always see a pair that belongs together.
+     */
+    static final class Node {
+        private static final AtomicLongFieldUpdater<Node> STATS = AtomicLongFieldUpdater.newUpdater(Node.class, "stats");
+
+        final GameState state;
+        final int move;
+        // Children, one per legal move, or null until the node is expanded
+        volatile Node[] children;
+        // Playouts through the node, including running ones as virtual losses, in the high half, and their points
+        // times two (2 for a win, 1 for a draw) in the low half
+        private volatile long stats;
+
+        Node(GameState state, int move) {
+            this.state = state;
+            this.move = move;
+        }
+
+        /**
+         * Counts a running playout through the node as a loss until it returns.
+         *
+         * @return the visits of the node, this one included.
+         */
+        int addVirtualLoss() {
+            return visits(STATS.addAndGet(this, (long) VIRTUAL_LOSS << 32));
+        }
+
+        /**
+         * Replaces the virtual loss of a playout with its result.
+         *
+         * @param halfPoints the points of the playout times two.
+         */
+        void update(int halfPoints, int virtualLoss) {
+            STATS.addAndGet(this, ((long) (1 - virtualLoss) << 32) + halfPoints);
+        }
+
+        long stats() {
+            return stats;
+        }
+
+        static int visits(long stats) {
+            return (int) (stats >>> 32);
+        }
+
+        static double wins(long stats) {
+            return (int) stats / 2.0;
+        }
+    }
+
+    private final long timeLimit = Long.getLong("reversi.search.millis", 500);
+    private final long positionLimit = Long.getLong("reversi.search.nodes", 0);
+    private final long playoutLimit = Long.getLong("reversi.mcts.playouts", 0);
+    private final int nodeLimit = Integer.getInteger("reversi.mcts.nodes", 1_000_000);
+    private final int threads = Math.max(1, Integer.getInteger("reversi.search.threads", 1));
+    private final double exploration = Double.parseDouble(System.getProperty("reversi.mcts.exploration", "1.0"));
+    // Worker threads, created with the first move
+    private ExecutorService pool;
+    // Tree kept from the last move: its root is the position after this player's move
+    private Node tree;
+    // Stop flag of the move being made or announced by prepareMove(); replaced by the next announced move
+    private final AtomicReference<AtomicBoolean> moveStop = new AtomicReference<>(new AtomicBoolean());
+    // State of the running search
+    private final AtomicLong playouts = new AtomicLong();
+    private final AtomicLong positions = new AtomicLong();
+    private final AtomicInteger nodes = new AtomicInteger();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private long deadline;
+    // Statistics of the last search, kept for tools that want to report them
+    private SearchResult lastResult;
+
+    /**
+     * Constructs an {@code MCTSAI} player.
+     *
+     * @param isPlayerOne a boolean indicating if this AI is the first player.
+     */
+    public MCTSAI(boolean isPlayerOne) {
+        super(isPlayerOne);
+    }
+
+    /**
+     * Searches the current position within the budget and returns the most explored move.
+     *
+     * @param gameStatus the current state of the game.
+     * @return the chosen move.
+     */
+    @Override
+    public Move makeMove(PlayableLogic gameStatus) {
+        AtomicBoolean stop = moveStop.get();
+        try {
+            return makeMove(gameStatus, stop);
+        } finally {
+            // A stop request is used up by the move it stopped, so the next move runs even if it is not announced
+            if (stop.get()) moveStop.compareAndSet(stop, new AtomicBoolean());
+        }
+    }
+
+    private Move makeMove(PlayableLogic gameStatus, AtomicBoolean stop) {
+        long start = System.nanoTime();
+        GameState position = GameState.of(gameStatus);
+        Node root = reuse(position);
+        if (root.state.isGameOver()) throw new IllegalStateException("No valid moves available");
+        if (timeLimit <= 0 && positionLimit <= 0 && playoutLimit <= 0) {
+            throw new IllegalStateException("No search budget: set reversi.search.millis, reversi.search.nodes or reversi.mcts.playouts");
+        }
+        playouts.set(0);
+        positions.set(0);
+        nodes.set(0);
+        maxDepth.set(0);
+        deadline = timeLimit > 0 ? start + timeLimit * 1_000_000 : Long.MAX_VALUE;
+        if (root.children == null) expand(root, new int[SearchEngine.MAX_MOVES]);
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "mcts");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        Future<?>[] workers = new Future<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = new SplittableRandom(this.random.nextLong());
+            workers[i] = pool.submit(() -> search(root, random, stop));
+        }
+        // The tree is only read once every worker is done, even when this thread is interrupted
+        boolean interrupted = false;
+        try {
+            for (Future<?> worker : workers) {
+                while (true) {
+                    try {
+                        worker.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        stop.set(true);
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            stop.set(true);
+            throw new IllegalStateException("Search failed", e.getCause());
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        Node best = root.children[0];
+        for (Node child : root.children) {
+            if (Node.visits(child.stats()) > Node.visits(best.stats())) best = child;
+        }
+        tree = best;
+        long stats = best.stats();
+        int score = Node.visits(stats) == 0 ? 0 : (int) Math.round(1000 * Node.wins(stats) / Node.visits(stats));
+        long played = playoutLimit > 0 ? Math.min(playoutLimit, playouts.get()) : playouts.get();
+        lastResult = new SearchResult(best.move, score, maxDepth.get(), played, (System.nanoTime() - start) / 1_000_000);
+        return GameState.toMove(best.move, this);
+    }
+
+    /**
+     * Finds the position among the kept tree's root and its children, so the playouts already spent on it are reused;
+     * starts a new tree if it is not there.
+     */
+    private Node reuse(GameState position) {
+        Node kept = tree;
+        tree = null;
+        if (kept != null) {
+            if (kept.state.equals(position)) return kept;
+            Node[] children = kept.children;
+            if (children != null) {
+                for (Node child : children) {
+                    if (child.state.equals(position)) return child;
+                }
+            }
+        }
+        return new Node(position, -1);
+    }
+
+    /**
+     * Runs playouts from the root until the budget is spent or the search is stopped.
+     */
+    private void search(Node root, SplittableRandom random, AtomicBoolean stop) {
+        Node[] path = new Node[SearchEngine.MAX_PLY + 1];
+        int[] moves = new int[SearchEngine.MAX_MOVES];
+        while (!stop.get() && System.nanoTime() < deadline && (positionLimit <= 0 || positions.get() < positionLimit)) {
+            if (playoutLimit > 0 && playouts.getAndIncrement() >= playoutLimit) break;
+            playout(root, path, moves, random);
+            if (playoutLimit <= 0) playouts.incrementAndGet();
+        }
+    }
+
+    /**
+     * Goes down the tree by UCT, expands the node reached, plays a random game from there and updates the nodes
+     * on the way with the result.
+     */
+    private void playout(Node root, Node[] path, int[] moves, SplittableRandom random) {
+        int depth = 0;
+        Node node = root;
+        path[depth++] = node;
+        node.addVirtualLoss();
+        while (true) {
+            Node[] children = node.children;
+            if (children == null) {
+                if (node.state.isGameOver() || nodes.get() >= nodeLimit) break;
+                children = expand(node, moves);
+            }
+            node = select(node, children);
+            path[depth++] = node;
+            // Stop at a node no playout went through yet
+            if (node.addVirtualLoss() == VIRTUAL_LOSS) break;
+        }
+        maxDepth.accumulateAndGet(depth - 1, Math::max);
+        int margin = rollout(node.state, moves, random, depth);
+        for (int i = 0; i < depth; i++) {
+            // The points go to the player who moved into the node, the one not to move there
+            boolean mover = !path[i].state.isPlayerOneToMove();
+            int halfPoints = margin == 0 ? 1 : (margin > 0) == mover ? 2 : 0;
+            path[i].update(halfPoints, VIRTUAL_LOSS);
+        }
+    }
+
+    /**
+     * Creates the children of a node, unless another thread already did.
+     */
+    private Node[] expand(Node node, int[] moves) {
+        synchronized (node) {
+            if (node.children == null) {
+                int count = node.state.legalMoves(moves);
+                Node[] children = new Node[count];
+                for (int i = 0; i < count; i++) children[i] = new Node(node.state.play(moves[i]), moves[i]);
+                nodes.addAndGet(count);
+                node.children = children;
+            }
+            return node.children;
+        }
+    }
+
+    /**
+     * Picks the child with the best UCT value; children not visited yet come first.
+     */
+    private Node select(Node parent, Node[] children) {
+        double logVisits = Math.log(Math.max(1, Node.visits(parent.stats())));
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Node child : children) {
+            long stats = child.stats();
+            int visits = Node.visits(stats);
+            if (visits == 0) return child;
+            double value = Node.wins(stats) / visits + exploration * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays random moves to the end of the game and counts the positions visited by the playout.
+     *
+     * @param treeSteps the positions the playout went through in the tree.
+     * @return the final disc difference for player 1.
+     */
+    private int rollout(GameState state, int[] moves, SplittableRandom random, int treeSteps) {
+        int plies = 0;
+        for (; ; plies++) {
+            long squares = state.legalSquares();
+            if (squares == 0) break;
+            int square = Long.numberOfTrailingZeros(Long.expand(1L << random.nextInt(Long.bitCount(squares)), squares));
+            int move = GameState.move(square, DiscKind.SIMPLE);
+            if (random.nextDouble() < SPECIAL_DISC_RATE) {
+                int count = state.legalMoves(moves);
+                int special = moves[random.nextInt(count)];
+                if (GameState.kind(special) != DiscKind.SIMPLE) move = special;
+            }
+            state = state.play(move);
+        }
+        positions.addAndGet(treeSteps + plies);
+        return state.discCount(true) - state.discCount(false);
+    }
+
+    /**
+     * Stops the running or announced search; it plays the most explored move so far.
+     */
+    @Override
+    public void stopThinking() {
+        moveStop.get().set(true);
+    }
+
+    /**
+     * Gives the announced move a stop flag of its own, so a stop that arrives before the move starts stops it.
+     */
+    @Override
+    public void prepareMove() {
+        moveStop.set(new AtomicBoolean());
+    }
+
+    /**
+     * Shuts down the worker threads and drops the kept tree.
+     */
+    @Override
+    public void close() {
+        if (pool != null) pool.shutdownNow();
+        pool = null;
+        tree = null;
+    }
+
+    /**
+     * Returns the result of the last search: the move, the win rate of the move in thousandths as score, the depth
+     * of the deepest node reached and the number of playouts as nodes.
+     *
+     * @return the last search result, or {@code null} before the first move.
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+}
@@ -1,7 +1,7 @@
-import java.util.List;
 /**
  * AIPlayer implementation that uses the Min-Max algorithm to determine the best move.
  * The AI evaluates moves based on the maximum number of flips and average flips.
+ * Moves are tried on a private {@link GameState} snapshot, so the live game is never modified while thinking.
  */
 
 public class MinMaxAI extends AIPlayer {
@@ -16,39 +16,50 @@ public class MinMaxAI extends AIPlayer {
     }
 
     /**
-     * Calculates the maximum number of flips that can be achieved from a list of valid positions.
+     * Calculates the maximum number of flips the player to move can achieve in the given state.
      *
-     * @param gameStatus The current game state.
-     * @param pos        A list of valid positions to play.
+     * @param state The state to evaluate.
      * @return The maximum number of flips that can be achieved.
      */
-    private int maxFlip(PlayableLogic gameStatus, List<Position> pos) {
-        if (pos == null || pos.isEmpty())
-            return 0;
-        int max = gameStatus.countFlips(pos.getFirst());
-        for (int i = 1; i < pos.size(); i++) {
-            if (max < gameStatus.countFlips(pos.get(i)))
-                max = gameStatus.countFlips(pos.get(i));
+    private int maxFlip(GameState state) {
+        int max = 0;
+        for (long squares = state.legalSquares(); squares != 0; squares &= squares - 1) {
+            max = Math.max(max, Long.bitCount(state.flips(Long.numberOfTrailingZeros(squares))));
         }
         return max;
     }
 
     /**
-     * Calculates the average number of flips that can be achieved from a list of valid positions.
+     * Calculates the average number of flips the player to move can achieve in the given state.
      *
-     * @param gameStatus The current game state.
-     * @param pos        A list of valid positions to play.
+     * @param state The state to evaluate.
      * @return The average number of flips that can be achieved.
      */
-    private double avgFlip(PlayableLogic gameStatus, List<Position> pos) {
-        if (pos == null || pos.isEmpty())
+    private double avgFlip(GameState state) {
+        long squares = state.legalSquares();
+        if (squares == 0)
             return 0;
-        double count = gameStatus.countFlips(pos.getFirst());
-        for (int i = 1; i < pos.size(); i++) {
-            count += gameStatus.countFlips(pos.get(i));
+        double count = 0;
+        for (long s = squares; s != 0; s &= s - 1) {
+            count += Long.bitCount(state.flips(Long.numberOfTrailingZeros(s)));
         }
-        count /= pos.size();
-        return count;
+        return count / Long.bitCount(squares);
+    }
+
+    /**
+     * Chooses the disc to place on a square: an unflippable disc on the edges while any are left,
+     * a simple disc otherwise.
+     *
+     * @param state  The state the move is played in.
+     * @param square The square to play on.
+     * @return The encoded move.
+     */
+    private int discFor(GameState state, int square) {
+        int row = square / BitBoard.SIZE;
+        int col = square % BitBoard.SIZE;
+        if ((col == 0 || row == 0 || col == 7 || row == 7) && state.hasDisc(DiscKind.UNFLIPPABLE))
+            return GameState.move(square, DiscKind.UNFLIPPABLE);
+        return GameState.move(square, DiscKind.SIMPLE);
     }
 
     /**
@@ -60,29 +71,24 @@ public class MinMaxAI extends AIPlayer {
      */
     @Override
     public Move makeMove(PlayableLogic gameStatus) {
-        List<Position> pos = gameStatus.ValidMoves();
-        Position max = pos.getFirst();
-        GameLogic temp = (GameLogic) gameStatus;
-        double maxD = gameStatus.countFlips(max);
-        temp.locate_disc(max, new SimpleDisc(((GameLogic) gameStatus).getCurrentPlayer()));
-        maxD -= maxFlip(temp, temp.ValidMoves());
-        maxD -= avgFlip(temp, temp.ValidMoves());
-        temp.undoLastMove();
-        for (Position p : pos) {
-            double t = gameStatus.countFlips(p);
-            if ((p.col() == 0 || p.row() == 0 || p.col() == 7 || p.row() == 7) && this.getNumber_of_unflippedable() > 0)
-                temp.locate_disc(p, new UnflippableDisc(this));
-            temp.locate_disc(p, new SimpleDisc(this));
-            t -= maxFlip(temp, temp.ValidMoves());
-            t -= avgFlip(temp, temp.ValidMoves());
+        GameState state = GameState.of(gameStatus);
+        int max = -1;
+        double maxD = Double.NEGATIVE_INFINITY;
+        for (long squares = state.legalSquares(); squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            long flips = state.flips(square);
+            int move = discFor(state, square);
+            GameState next = state.play(move, flips);
+            double t = Long.bitCount(flips);
+            t -= maxFlip(next);
+            t -= avgFlip(next);
             if (t > maxD) {
                 maxD = t;
-                max = p;
+                max = move;
             }
-            temp.undoLastMove();
         }
-        if ((max.col() == 0 || max.row() == 0 || max.col() == 7 || max.row() == 7) && this.getNumber_of_unflippedable() > 0)
-            return new Move(max, new UnflippableDisc(this));
-        return new Move(max, new SimpleDisc(this));
+        if (max < 0)
+            throw new IllegalStateException("No valid moves available");
+        return GameState.toMove(max, this);
     }
-}
\ No newline at end of file
+}
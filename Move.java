@@ -1,6 +1,8 @@
 public class Move {
     private Position pos;
     private Disc d;
+    // Squares flipped by this move, recorded by the game logic so the move can be undone and redone
+    private long flipped;
 
     public Move(Position pos, Disc disc){
         this.pos=pos;
@@ -15,6 +17,24 @@ public class Move {
         return this.d;
     }
 
+    /**
+     * Returns the squares flipped when this move was played, as a bitboard mask.
+     *
+     * @return the flipped squares, or 0 if the move was not played yet.
+     */
+    public long flipped() {
+        return this.flipped;
+    }
+
+    /**
+     * Records the squares flipped by this move.
+     *
+     * @param flipped the flipped squares as a bitboard mask.
+     */
+    void setFlipped(long flipped) {
+        this.flipped = flipped;
+    }
+
     public void makeMove(Disc[][] board, Position pos, Disc disc) {
         if (pos!= null){
         board[pos.row()][pos.col()] = disc;
@@ -0,0 +1,126 @@
+/**
+ * Decides in which order the search engine tries the moves of a position.
+ * Alpha-beta prunes the most when the best move is searched first, so moves are ranked by:
+ * <ol>
+ *     <li>the best move stored in the transposition table for the position (the hash move),</li>
+ *     <li>the killer moves: the last two moves that caused a cutoff at the same distance from the root,</li>
+ *     <li>the history table: how often and how deep a square and disc kind caused cutoffs anywhere in the tree,</li>
+ *     <li>a static fallback: the value of the square, and, far enough from the leaves,
+ *     how few moves the opponent is left with.</li>
+ * </ol>
+ * An instance belongs to one search thread.
+ */
+public class MoveOrdering {
+    // Score bands that keep the hash move and the killers ahead of the other moves
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int KILLER = 1 << 29;
+    // History values are halved once any of them reaches this limit
+    private static final int HISTORY_LIMIT = 1 << 20;
+    // Remaining depth from which the opponent's mobility is worth computing for every move
+    private static final int MOBILITY_DEPTH = 3;
+    private static final int MOBILITY_WEIGHT = 40;
+
+    // Two killer moves per ply, -1 when empty
+    private final int[][] killers = new int[SearchEngine.MAX_PLY + 1][2];
+    // Butterfly table indexed by [player (0 = player 1)][disc kind][square]
+    private final int[][][] history = new int[2][DiscKind.values().length][BitBoard.SIZE * BitBoard.SIZE];
+    // Scratch scores for sorting, one list per ply
+    private final int[][] scores = new int[SearchEngine.MAX_PLY + 1][SearchEngine.MAX_MOVES];
+
+    /**
+     * Creates an empty move ordering.
+     */
+    public MoveOrdering() {
+        clearKillers();
+    }
+
+    /**
+     * Prepares for a new search: forgets the killers and fades the history of earlier searches.
+     */
+    public void newSearch() {
+        clearKillers();
+        ageHistory();
+    }
+
+    /**
+     * Sorts the moves of a position, most promising first.
+     *
+     * @param state    the position.
+     * @param moves    the moves, sorted in place.
+     * @param count    the number of moves.
+     * @param hashMove the move stored in the transposition table, or -1.
+     * @param ply      the distance from the root.
+     * @param depth    the remaining search depth.
+     */
+    public void order(GameState state, int[] moves, int count, int hashMove, int ply, int depth) {
+        int[] score = scores[ply];
+        int side = state.isPlayerOneToMove() ? 0 : 1;
+        int[] killer = killers[ply];
+        boolean mobility = depth >= MOBILITY_DEPTH;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int square = GameState.square(move);
+            if (move == hashMove) {
+                score[i] = HASH_MOVE;
+            } else if (move == killer[0]) {
+                score[i] = KILLER + 1;
+            } else if (move == killer[1]) {
+                score[i] = KILLER;
+            } else {
+                int s = history[side][GameState.kind(move).ordinal()][square] + HeuristicEvaluator.SQUARE_VALUES[square];
+                if (mobility) {
+                    GameState child = state.play(move);
+                    s -= Long.bitCount(child.legalSquares()) * MOBILITY_WEIGHT;
+                }
+                score[i] = s;
+            }
+        }
+        // Insertion sort: move lists are short and usually close to sorted after the first few entries
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            int s = score[i];
+            int j = i - 1;
+            while (j >= 0 && score[j] < s) {
+                moves[j + 1] = moves[j];
+                score[j + 1] = score[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            score[j + 1] = s;
+        }
+    }
+
+    /**
+     * Records a move that caused a beta cutoff.
+     *
+     * @param state the position the move was played in.
+     * @param move  the move.
+     * @param ply   the distance from the root.
+     * @param depth the remaining search depth.
+     */
+    public void recordCutoff(GameState state, int move, int ply, int depth) {
+        int[] killer = killers[ply];
+        if (killer[0] != move) {
+            killer[1] = killer[0];
+            killer[0] = move;
+        }
+        int side = state.isPlayerOneToMove() ? 0 : 1;
+        int[] squares = history[side][GameState.kind(move).ordinal()];
+        int square = GameState.square(move);
+        squares[square] += depth * depth;
+        if (squares[square] >= HISTORY_LIMIT) ageHistory();
+    }
+
+    private void clearKillers() {
+        for (int[] killer : killers) {
+            killer[0] = -1;
+            killer[1] = -1;
+        }
+    }
+
+    private void ageHistory() {
+        for (int[][] side : history)
+            for (int[] kind : side)
+                for (int square = 0; square < kind.length; square++) kind[square] >>= 1;
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An opening book: the best known move of early positions, read from a memory-mapped file.
+ * <p>
+ * Positions are keyed by their canonical hash: the smallest {@link Zobrist} hash over the 8 symmetries of
+ * the board (rotations and reflections), which do not change the game. A position and its mirror images share
+ * one entry, and the stored move is turned back into the orientation of the position being looked up.
+ * <p>
+ * The file is an open-addressing hash table, so a lookup reads a few slots of the mapped file and allocates
+ * nothing. Layout, little-endian:
+ * <pre>
+ *   header  magic "RVBK" (int), version (int), slot count, a power of two (int), entry count (int),
+ *           games the book was built from (long), 8 reserved bytes
+ *   slots   canonical key (long, 0 for an empty slot), move in the canonical orientation (int),
+ *           number of games that played the move (int)
+ * </pre>
+ * Books are written by {@link OpeningBookBuilder}.
+ * <p>
+ * Usage: {@code java OpeningBook <file> [moves...]}, with moves written as for {@link Perft}; prints the book move
+ * of the position after the moves.
+ */
+public class OpeningBook {
+    static final int MAGIC = 0x5256424B;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int SLOT_BYTES = 16;
+    // Square maps of the 8 symmetries, and of their inverses: bit 0 transposes, bit 1 flips the rows, bit 2 the columns
+    private static final int[][] SYMMETRIES = new int[8][BitBoard.SIZE * BitBoard.SIZE];
+    private static final int[][] INVERSES = new int[8][BitBoard.SIZE * BitBoard.SIZE];
+
+    static {
+        int last = BitBoard.SIZE - 1;
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            for (int square = 0; square < BitBoard.SIZE * BitBoard.SIZE; square++) {
+                int row = square / BitBoard.SIZE;
+                int col = square % BitBoard.SIZE;
+                if ((symmetry & 1) != 0) {
+                    int swap = row;
+                    row = col;
+                    col = swap;
+                }
+                if ((symmetry & 2) != 0) row = last - row;
+                if ((symmetry & 4) != 0) col = last - col;
+                int image = BitBoard.square(row, col);
+                SYMMETRIES[symmetry][square] = image;
+                INVERSES[symmetry][image] = square;
+            }
+        }
+    }
+
+    private final ByteBuffer slots;
+    private final int mask;
+    private final int entries;
+    private final long games;
+
+    private OpeningBook(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) throw new IllegalArgumentException("Not an opening book");
+        if (buffer.getInt(4) != VERSION) throw new IllegalArgumentException("Unsupported opening book version " + buffer.getInt(4));
+        int slotCount = buffer.getInt(8);
+        if (Integer.bitCount(slotCount) != 1 || buffer.capacity() < HEADER_BYTES + (long) slotCount * SLOT_BYTES) {
+            throw new IllegalArgumentException("Truncated opening book");
+        }
+        mask = slotCount - 1;
+        entries = buffer.getInt(12);
+        games = buffer.getLong(16);
+        slots = buffer;
+    }
+
+    /**
+     * Maps a book file into memory.
+     *
+     * @param file the book file.
+     * @return the book.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a valid book.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new OpeningBook(buffer.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Opens the book named by the {@code reversi.book} system property.
+     *
+     * @return the book, or {@code null} if the property is not set.
+     * @throws UncheckedIOException if the book cannot be read.
+     */
+    static OpeningBook configured() {
+        String file = System.getProperty("reversi.book", "");
+        if (file.isEmpty()) return null;
+        try {
+            return open(Path.of(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the opening book " + file, e);
+        }
+    }
+
+    /**
+     * Looks up the book move of a position.
+     *
+     * @param state the position.
+     * @return the encoded move, in the orientation of the given position, or -1 if the position is not in the book.
+     */
+    public int lookup(GameState state) {
+        int symmetry = canonicalSymmetry(state);
+        long key = symmetricHash(state, symmetry);
+        for (int probe = 0, slot = (int) key & mask; probe <= mask; probe++, slot = (slot + 1) & mask) {
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            long stored = slots.getLong(offset);
+            if (stored == 0) return -1;
+            if (stored != key) continue;
+            int canonical = slots.getInt(offset + Long.BYTES);
+            int move = GameState.move(INVERSES[symmetry][GameState.square(canonical)], GameState.kind(canonical));
+            // A legality check guards against the rare hash collision
+            return state.isLegal(move) ? move : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of positions in the book.
+     *
+     * @return the entry count.
+     */
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Returns the number of games the book was built from.
+     *
+     * @return the game count.
+     */
+    public long games() {
+        return games;
+    }
+
+    /**
+     * Finds the symmetry that gives a position its canonical orientation: the one with the smallest hash.
+     *
+     * @param state the position.
+     * @return the symmetry, from 0 (identity) to 7.
+     */
+    static int canonicalSymmetry(GameState state) {
+        int best = 0;
+        long bestHash = symmetricHash(state, 0);
+        for (int symmetry = 1; symmetry < 8; symmetry++) {
+            long hash = symmetricHash(state, symmetry);
+            if (Long.compareUnsigned(hash, bestHash) < 0) {
+                best = symmetry;
+                bestHash = hash;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Computes the hash a position would have after a symmetry, without building the transformed position.
+     *
+     * @param state    the position.
+     * @param symmetry the symmetry, from 0 to 7.
+     * @return the hash of the transformed position.
+     */
+    static long symmetricHash(GameState state, int symmetry) {
+        long player1 = state.discs(true);
+        long hash = Zobrist.bombs(true, state.bombsLeft(true)) ^ Zobrist.unflippables(true, state.unflippablesLeft(true))
+                ^ Zobrist.bombs(false, state.bombsLeft(false)) ^ Zobrist.unflippables(false, state.unflippablesLeft(false));
+        if (!state.isPlayerOneToMove()) hash ^= Zobrist.side();
+        int[] map = SYMMETRIES[symmetry];
+        for (long s = ~state.empty(); s != 0; s &= s - 1) {
+            int square = Long.numberOfTrailingZeros(s);
+            long bit = BitBoard.bit(square);
+            DiscKind kind = (state.bombs() & bit) != 0 ? DiscKind.BOMB
+                    : (state.unflippables() & bit) != 0 ? DiscKind.UNFLIPPABLE : DiscKind.SIMPLE;
+            hash ^= Zobrist.square((player1 & bit) != 0, kind, map[square]);
+        }
+        return hash;
+    }
+
+    /**
+     * Turns a move into the canonical orientation of the position it is played in.
+     *
+     * @param state the position.
+     * @param move  the encoded move.
+     * @return the move as stored in the book.
+     */
+    static int canonicalMove(GameState state, int move) {
+        int symmetry = canonicalSymmetry(state);
+        return GameState.move(SYMMETRIES[symmetry][GameState.square(move)], GameState.kind(move));
+    }
+
+    /**
+     * Writes a book file.
+     *
+     * @param file    the file to write, replaced if it exists.
+     * @param keys    the canonical keys of the positions; 0 is not allowed.
+     * @param moves   the move of each position, in the canonical orientation.
+     * @param counts  the number of games that played each move.
+     * @param games   the number of games the book was built from.
+     * @throws IOException if the file cannot be written.
+     */
+    static void write(Path file, long[] keys, int[] moves, int[] counts, long games) throws IOException {
+        // Keep the table at most half full so lookups stay short
+        int slotCount = Integer.highestOneBit(Math.max(1, keys.length) * 2 - 1) * 2;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + slotCount * SLOT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slotCount).putInt(12, keys.length).putLong(16, games);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == 0) throw new IllegalArgumentException("Key 0 marks empty slots");
+            int slot = (int) keys[i] & (slotCount - 1);
+            while (buffer.getLong(HEADER_BYTES + slot * SLOT_BYTES) != 0) slot = (slot + 1) & (slotCount - 1);
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            buffer.putLong(offset, keys[i]).putInt(offset + Long.BYTES, moves[i]).putInt(offset + Long.BYTES + Integer.BYTES, counts[i]);
+        }
+        Files.write(file, buffer.array());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java OpeningBook <file> [moves...]");
+            System.exit(2);
+        }
+        OpeningBook book = open(Path.of(args[0]));
+        List<Integer> moves = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) moves.add(Perft.parseMove(args[i]));
+        GameState state = Perft.replay(moves).snapshot();
+        int move = book.lookup(state);
+        System.out.println(book.size() + " positions from " + book.games() + " games; book move: "
+                + (move < 0 ? "none" : Perft.formatMove(move)));
+    }
+}
@@ -0,0 +1,220 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds an {@link OpeningBook} from self-play games.
+ * <p>
+ * Each game starts with a few random moves, so the games spread over many openings, and is then played to the
+ * end by an AI against itself. For every position of the first plies, the builder counts how often each move
+ * was played and how it scored for the player who played it (a win counts 1, a draw one half). The book keeps,
+ * for each position seen often enough, the move with the best score, with the positions that are mirror images
+ * of each other counted together. Games run in parallel; each has its own seed and its own new AIs, which carry
+ * no search tables or move statistics over from earlier games, so a build with a node budget is reproducible.
+ * <p>
+ * Usage: {@code java OpeningBookBuilder <file> [games] [plies] [threads] [seed] [AI]}, by default 1000 games,
+ * a 12-ply book and the {@code AlphaBetaAI} with a node budget of 20000 ({@code reversi.search.nodes})
+ * and an 8 MB transposition table ({@code reversi.hash.mb}).
+ */
+public class OpeningBookBuilder {
+    // Number of random moves at the start of each game
+    private static final int RANDOM_PLIES = 4;
+    // Positions played fewer times than this are left out of the book
+    private static final int MIN_GAMES = 2;
+
+    private final String aiType;
+    private final int plies;
+    private final int threads;
+    private final long seed;
+    // Statistics by canonical position key, then by canonical move: games played and points scored times two
+    private final Map<Long, Map<Integer, int[]>> statistics = new HashMap<>();
+    private long games;
+
+    /**
+     * Creates a builder.
+     *
+     * @param aiType  the AI playing the games, as listed by {@link AIPlayer#getAIPlayerTypes()}.
+     * @param plies   the number of plies covered by the book.
+     * @param threads the number of games played at the same time.
+     * @param seed    the seed all game seeds are derived from.
+     */
+    public OpeningBookBuilder(String aiType, int plies, int threads, long seed) {
+        this.aiType = aiType;
+        this.plies = plies;
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * The book positions of one game.
+     *
+     * @param keys   the canonical key of each position.
+     * @param moves  the canonical move played in each position.
+     * @param points the points the move scored for its player, times two: 2 for a win, 1 for a draw, 0 for a loss.
+     */
+    record BookGame(long[] keys, int[] moves, int[] points) {
+    }
+
+    /**
+     * Plays one game and returns its book positions.
+     *
+     * @param game the game number.
+     * @return the positions of the first plies with their moves and results.
+     */
+    BookGame playGame(int game) {
+        AIPlayer[] ais = {AIPlayer.createAIPlayer(aiType, true), AIPlayer.createAIPlayer(aiType, false)};
+        try {
+            return playGame(game, ais);
+        } finally {
+            ais[0].close();
+            ais[1].close();
+        }
+    }
+
+    private BookGame playGame(int game, AIPlayer[] ais) {
+        long gameSeed = seed * 0x9E3779B97F4A7C15L + game;
+        Random random = new Random(gameSeed);
+        ais[0].setSeed(gameSeed);
+        ais[1].setSeed(~gameSeed);
+        GameLogic logic = new GameLogic();
+        logic.setPlayers(ais[0], ais[1]);
+        logic.reset();
+        List<GameState> positions = new ArrayList<>();
+        List<Integer> moves = new ArrayList<>();
+        int[] legal = new int[SearchEngine.MAX_MOVES];
+        for (int ply = 0; ; ply++) {
+            GameState state = logic.snapshot();
+            int count = state.legalMoves(legal);
+            if (count == 0) break;
+            int move;
+            if (ply < RANDOM_PLIES) {
+                move = legal[random.nextInt(count)];
+            } else {
+                Move chosen = (logic.isFirstPlayerTurn() ? ais[0] : ais[1]).makeMove(logic);
+                move = GameState.move(chosen.position().square(), chosen.disc().kind());
+                if (!state.isLegal(move)) move = legal[random.nextInt(count)];
+            }
+            if (ply < plies) {
+                positions.add(state);
+                moves.add(move);
+            }
+            logic.locate_disc(GameState.square(move), logic.getCurrentPlayer().disc(GameState.kind(move)));
+        }
+        GameState end = logic.snapshot();
+        int margin = end.discCount(true) - end.discCount(false);
+        long[] keys = new long[positions.size()];
+        int[] canonicalMoves = new int[positions.size()];
+        int[] points = new int[positions.size()];
+        for (int i = 0; i < keys.length; i++) {
+            GameState state = positions.get(i);
+            keys[i] = OpeningBook.symmetricHash(state, OpeningBook.canonicalSymmetry(state));
+            canonicalMoves[i] = OpeningBook.canonicalMove(state, moves.get(i));
+            int result = state.isPlayerOneToMove() ? margin : -margin;
+            points[i] = result > 0 ? 2 : result == 0 ? 1 : 0;
+        }
+        return new BookGame(keys, canonicalMoves, points);
+    }
+
+    /**
+     * Plays the given number of games and adds their positions to the statistics.
+     *
+     * @param count the number of games.
+     */
+    public void play(int count) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<BookGame>> futures = new ArrayList<>(count);
+            long first = games;
+            for (int game = 0; game < count; game++) {
+                int number = (int) (first + game);
+                futures.add(pool.submit(() -> playGame(number)));
+            }
+            for (Future<BookGame> future : futures) {
+                BookGame record = future.get();
+                for (int i = 0; i < record.keys().length; i++) {
+                    int[] stats = statistics.computeIfAbsent(record.keys()[i], key -> new HashMap<>())
+                            .computeIfAbsent(record.moves()[i], move -> new int[2]);
+                    stats[0]++;
+                    stats[1] += record.points()[i];
+                }
+                games++;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the book: for every position played at least twice, the move with the best score.
+     * Scores are estimated with one extra draw added to every move, so a move played once does not beat
+     * a move that kept winning.
+     *
+     * @param file the file to write.
+     * @return the number of positions written.
+     * @throws IOException if the file cannot be written.
+     */
+    public int write(Path file) throws IOException {
+        List<Long> keys = new ArrayList<>();
+        List<int[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, int[]>> position : statistics.entrySet()) {
+            if (position.getKey() == 0) continue;
+            int total = 0;
+            int bestMove = -1;
+            double bestScore = -1;
+            for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                int[] stats = move.getValue();
+                total += stats[0];
+                double score = (stats[1] + 1.0) / (2.0 * stats[0] + 2.0);
+                if (score > bestScore || (score == bestScore && move.getKey() < bestMove)) {
+                    bestScore = score;
+                    bestMove = move.getKey();
+                }
+            }
+            if (total < MIN_GAMES) continue;
+            keys.add(position.getKey());
+            entries.add(new int[]{bestMove, position.getValue().get(bestMove)[0]});
+        }
+        long[] keyArray = new long[keys.size()];
+        int[] moves = new int[keys.size()];
+        int[] counts = new int[keys.size()];
+        for (int i = 0; i < keyArray.length; i++) {
+            keyArray[i] = keys.get(i);
+            moves[i] = entries.get(i)[0];
+            counts[i] = entries.get(i)[1];
+        }
+        OpeningBook.write(file, keyArray, moves, counts, games);
+        return keyArray.length;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("reversi.search.nodes") == null) {
+            System.setProperty("reversi.search.millis", "0");
+            System.setProperty("reversi.search.nodes", "20000");
+        }
+        if (System.getProperty("reversi.hash.mb") == null) System.setProperty("reversi.hash.mb", "8");
+        AIPlayer.registerAllAIPlayers();
+        if (args.length < 1) {
+            System.err.println("Usage: java OpeningBookBuilder <file> [games] [plies] [threads] [seed] [AI]");
+            System.exit(2);
+        }
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+        String ai = args.length > 5 ? args[5] : "AlphaBetaAI";
+        OpeningBookBuilder builder = new OpeningBookBuilder(ai, plies, threads, seed);
+        long start = System.nanoTime();
+        builder.play(games);
+        int positions = builder.write(Path.of(args[0]));
+        System.out.printf("%d games by %s, %d book positions written to %s in %.1f s%n",
+                games, ai, positions, args[0], (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a search on several threads at once using Lazy SMP.
+ * <p>
+ * Every thread runs its own {@link SearchEngine} on the same position, and all engines share one
+ * {@link TranspositionTable}. The threads never talk to each other directly: results one thread stores
+ * in the table let the others skip or reorder that part of the tree, and half of the helper threads start
+ * one ply deeper so they spread out over different parts of the tree. The main thread's result is used
+ * unless a helper completed a deeper iteration.
+ * <p>
+ * With a single thread the search runs directly on the calling thread.
+ */
+public class ParallelSearch {
+    private final SearchEngine[] engines;
+    private final TranspositionTable table;
+    // Worker threads for the helper engines, created on the first parallel search
+    private ExecutorService workers;
+    // Time budget, and total node budget split evenly between the threads
+    private long timeLimit;
+    private long nodeLimit;
+    // Stop flag of the running or last search
+    private volatile AtomicBoolean stopSignal = new AtomicBoolean();
+    // Results of every thread in the last search, main thread first
+    private volatile List<SearchResult> threadResults = Collections.emptyList();
+
+    /**
+     * Creates a parallel search.
+     *
+     * @param evaluator the evaluation function, shared by all threads.
+     * @param table     the transposition table, shared by all threads.
+     * @param threads   the number of search threads.
+     */
+    public ParallelSearch(Evaluator evaluator, TranspositionTable table, int threads) {
+        this.table = table;
+        engines = new SearchEngine[Math.max(1, threads)];
+        for (int i = 0; i < engines.length; i++) {
+            engines[i] = new SearchEngine(evaluator, table);
+            engines[i].setStartDepth(1 + i % 2);
+        }
+    }
+
+    /**
+     * Sets the time budget of each search.
+     *
+     * @param millis the budget in milliseconds, or 0 for no time limit.
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimit = millis;
+        for (SearchEngine engine : engines) engine.setTimeLimit(millis);
+    }
+
+    /**
+     * Sets the total node budget of each search, shared evenly by the threads.
+     *
+     * @param nodes the maximum number of positions to visit, or 0 for no node limit.
+     */
+    public void setNodeLimit(long nodes) {
+        this.nodeLimit = nodes;
+        for (SearchEngine engine : engines) engine.setNodeLimit(nodes > 0 ? Math.max(1, nodes / engines.length) : 0);
+    }
+
+    /**
+     * Sets the deepest iteration the search may reach.
+     *
+     * @param depth the maximum depth in plies.
+     */
+    public void setMaxDepth(int depth) {
+        for (SearchEngine engine : engines) engine.setMaxDepth(depth);
+    }
+
+    /**
+     * Returns the number of search threads.
+     *
+     * @return the thread count.
+     */
+    public int getThreadCount() {
+        return engines.length;
+    }
+
+    /**
+     * Returns the transposition table shared by the threads.
+     *
+     * @return the table.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the time budget of each search.
+     *
+     * @return the budget in milliseconds, or 0 if there is none.
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Returns the node budget of each search.
+     *
+     * @return the total node budget, or 0 if there is none.
+     */
+    public long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    /**
+     * Searches a position on all threads and returns the best move found within the budget.
+     * The returned node count is the total over all threads.
+     *
+     * @param root the position to search; the player to move must have a legal move.
+     * @return the chosen move with the combined search statistics.
+     * @throws IllegalStateException if the player to move has no legal move.
+     */
+    public SearchResult search(GameState root) {
+        return search(root, new AtomicBoolean());
+    }
+
+    /**
+     * Searches a position on all threads until the budget is spent or the given flag is raised.
+     * Raising the flag before the search starts stops it too: it then returns its first move at once.
+     * This lets the code that schedules a search on another thread create the flag first, so a stop
+     * that arrives before the search starts is not lost.
+     *
+     * @param root the position to search; the player to move must have a legal move.
+     * @param stop the flag that stops this search; {@link #stop()} raises it as well.
+     * @return the chosen move with the combined search statistics.
+     * @throws IllegalStateException if the player to move has no legal move.
+     */
+    public SearchResult search(GameState root, AtomicBoolean stop) {
+        stopSignal = stop;
+        engines[0].setStopSignal(stop);
+        // The helpers only exist to help the main thread, so they have a flag of their own, raised when it is done
+        AtomicBoolean helpersDone = new AtomicBoolean();
+        for (int i = 1; i < engines.length; i++) engines[i].setStopSignal(helpersDone);
+        if (engines.length == 1) {
+            SearchResult result = engines[0].search(root);
+            threadResults = List.of(result);
+            return result;
+        }
+        List<Future<SearchResult>> helpers = new ArrayList<>();
+        for (int i = 1; i < engines.length; i++) {
+            SearchEngine engine = engines[i];
+            helpers.add(workers().submit(() -> engine.search(root)));
+        }
+        List<SearchResult> results = new ArrayList<>();
+        try {
+            results.add(engines[0].search(root));
+        } finally {
+            helpersDone.set(true);
+            for (Future<SearchResult> helper : helpers) {
+                try {
+                    results.add(helper.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Search thread failed", e.getCause());
+                }
+            }
+        }
+        threadResults = Collections.unmodifiableList(results);
+        SearchResult best = results.getFirst();
+        long nodes = 0;
+        for (SearchResult result : results) {
+            nodes += result.nodes();
+            if (result.depth() > best.depth()) best = result;
+        }
+        return new SearchResult(best.move(), best.score(), best.depth(), nodes, results.getFirst().millis());
+    }
+
+    /**
+     * Asks the running search to stop as soon as possible. The search still returns its best move so far.
+     * A search that has not started yet is only stopped through the flag passed to
+     * {@link #search(GameState, AtomicBoolean)}.
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * Returns the statistics of each thread in the last search, the main thread first.
+     *
+     * @return the per-thread results.
+     */
+    public List<SearchResult> getThreadResults() {
+        return threadResults;
+    }
+
+    /**
+     * Stops the worker threads. The search can no longer run on more than one thread afterwards.
+     */
+    public synchronized void close() {
+        if (workers != null) workers.shutdownNow();
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            AtomicInteger count = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(engines.length - 1, runnable -> {
+                Thread thread = new Thread(runnable, "search-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+}
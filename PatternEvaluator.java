@@ -0,0 +1,393 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A table-driven evaluation function: the board is cut into patterns (edges, 3x3 and 2x5 corner blocks, diagonals),
+ * the contents of each pattern are read as a number, and that number looks up the pattern's value in a table.
+ * <p>
+ * Each square of a pattern is one base-4 digit, seen from one player: empty (0), the player's disc (1),
+ * the player's unflippable disc (2) or an opponent disc (3). Every pattern is read twice, once from each
+ * player's side, and the score is the difference of the two values, so it is the same for both players up to
+ * the sign. Bombs count as ordinary discs on the board. The patterns of the same shape in other corners or on other
+ * sides of the board share one table. On top of the patterns, a few scalar features are weighted: mobility and
+ * the bombs and unflippable discs still in hand.
+ * <p>
+ * The game is split into {@link #PHASES} phases by the number of empty squares, each with its own tables and
+ * weights, so the value of a pattern can change from the opening to the endgame. An evaluation is a few dozen
+ * table lookups.
+ * <p>
+ * The default weights spread the square values, disc count and unflippable bonus of {@link HeuristicEvaluator}
+ * over the patterns, so the evaluator plays like the heuristic one until trained weights are loaded. Weights are
+ * stored in a binary file, little-endian:
+ * <pre>
+ *   header  magic "RVPW" (int), version (int), phase count (int), pattern count (int), scalar count (int),
+ *           then the number of squares of each pattern (int each)
+ *   phases  for each phase, the table of each pattern (4^squares shorts), then the scalar weights (ints)
+ * </pre>
+ * Scores are in hundredths of a disc, like those of {@link HeuristicEvaluator}.
+ * <p>
+ * Usage: {@code java PatternEvaluator <file>}; writes the default weights to the file.
+ */
+public class PatternEvaluator implements Evaluator {
+    static final int MAGIC = 0x52565057;
+    static final int VERSION = 1;
+    // Number of game phases, each covering a tenth of the 60 moves
+    static final int PHASES = 6;
+    // Scalar features: mobility, bombs in hand and unflippable discs in hand, as differences between the players
+    static final int SCALARS = 3;
+    // Names of the patterns, and the squares of each pattern in the top-left corner of the board
+    static final String[] PATTERN_NAMES = {
+            "corner2x5", "corner3x3", "edge", "diagonal8", "diagonal7", "diagonal6", "diagonal5", "diagonal4"
+    };
+    static final int[][] PATTERN_SQUARES = {
+            {0, 1, 2, 3, 4, 8, 9, 10, 11, 12},
+            {0, 1, 2, 8, 9, 10, 16, 17, 18},
+            {0, 1, 2, 3, 4, 5, 6, 7},
+            {0, 9, 18, 27, 36, 45, 54, 63},
+            {1, 10, 19, 28, 37, 46, 55},
+            {2, 11, 20, 29, 38, 47},
+            {3, 12, 21, 30, 39},
+            {4, 13, 22, 31}
+    };
+    // The symmetries that move each pattern to its places on the board: bit 0 transposes, bit 1 flips the rows,
+    // bit 2 the columns
+    private static final int[][] PATTERN_SYMMETRIES = {
+            {0, 1, 2, 3, 4, 5, 6, 7},
+            {0, 2, 4, 6},
+            {0, 1, 2, 5},
+            {0, 4},
+            {0, 1, 4, 5},
+            {0, 1, 4, 5},
+            {0, 1, 4, 5},
+            {0, 1, 4, 5}
+    };
+    // Every placed pattern: its squares, digit 0 first, and the pattern it is an instance of
+    static final int[][] INSTANCE_SQUARES;
+    static final int[] INSTANCE_PATTERN;
+    // Per placed pattern: the mask of its squares, and for every subset of them, taken from a board mask with
+    // Long.compress, the code with digit 1 on those squares
+    private static final long[] INSTANCE_MASKS;
+    private static final int[][] INSTANCE_DIGITS;
+    // Phase of each number of empty squares
+    private static final int[] PHASE_OF_EMPTIES = new int[BitBoard.SIZE * BitBoard.SIZE + 1];
+
+    static {
+        int count = 0;
+        for (int[] symmetries : PATTERN_SYMMETRIES) count += symmetries.length;
+        INSTANCE_SQUARES = new int[count][];
+        INSTANCE_PATTERN = new int[count];
+        int instance = 0;
+        for (int pattern = 0; pattern < PATTERN_SQUARES.length; pattern++) {
+            for (int symmetry : PATTERN_SYMMETRIES[pattern]) {
+                int[] squares = new int[PATTERN_SQUARES[pattern].length];
+                for (int k = 0; k < squares.length; k++) squares[k] = transform(PATTERN_SQUARES[pattern][k], symmetry);
+                INSTANCE_SQUARES[instance] = squares;
+                INSTANCE_PATTERN[instance++] = pattern;
+            }
+        }
+        INSTANCE_MASKS = new long[count];
+        INSTANCE_DIGITS = new int[count][];
+        for (instance = 0; instance < count; instance++) {
+            int[] squares = INSTANCE_SQUARES[instance];
+            for (int square : squares) INSTANCE_MASKS[instance] |= 1L << square;
+            int[] digits = new int[1 << squares.length];
+            for (int subset = 0; subset < digits.length; subset++) {
+                long bits = Long.expand(subset, INSTANCE_MASKS[instance]);
+                for (int k = 0; k < squares.length; k++) {
+                    if ((bits & 1L << squares[k]) != 0) digits[subset] += 1 << (2 * k);
+                }
+            }
+            INSTANCE_DIGITS[instance] = digits;
+        }
+        for (int empties = 0; empties < PHASE_OF_EMPTIES.length; empties++) {
+            PHASE_OF_EMPTIES[empties] = Math.max(0, Math.min(PHASES - 1, (60 - empties) * PHASES / 60));
+        }
+    }
+
+    // Weights: [phase][pattern][code] and [phase][scalar]
+    private final short[][][] tables;
+    private final int[][] scalars;
+
+    /**
+     * Creates an evaluator with the default weights, derived from {@link HeuristicEvaluator}.
+     */
+    public PatternEvaluator() {
+        this(defaultTables(), defaultScalars());
+    }
+
+    /**
+     * Creates an evaluator with the given weights. The arrays are used as they are, not copied.
+     *
+     * @param tables  the pattern tables, indexed by phase, pattern and code.
+     * @param scalars the scalar weights, indexed by phase and feature.
+     * @throws IllegalArgumentException if an array does not have the expected shape.
+     */
+    PatternEvaluator(short[][][] tables, int[][] scalars) {
+        if (tables.length != PHASES || scalars.length != PHASES) throw new IllegalArgumentException("Expected " + PHASES + " phases");
+        for (int phase = 0; phase < PHASES; phase++) {
+            if (tables[phase].length != PATTERN_SQUARES.length || scalars[phase].length != SCALARS) {
+                throw new IllegalArgumentException("Wrong number of weights in phase " + phase);
+            }
+            for (int pattern = 0; pattern < PATTERN_SQUARES.length; pattern++) {
+                if (tables[phase][pattern].length != tableSize(pattern)) {
+                    throw new IllegalArgumentException("Wrong table size for " + PATTERN_NAMES[pattern]);
+                }
+            }
+        }
+        this.tables = tables;
+        this.scalars = scalars;
+    }
+
+    @Override
+    public int evaluate(GameState state) {
+        boolean me = state.isPlayerOneToMove();
+        long own = state.discs(me);
+        long opp = state.discs(!me);
+        int phase = phase(state.empties());
+        short[][] table = tables[phase];
+        long ownUnflippables = own & state.unflippables();
+        long oppUnflippables = opp & state.unflippables();
+        int score = 0;
+        for (int instance = 0; instance < INSTANCE_MASKS.length; instance++) {
+            long mask = INSTANCE_MASKS[instance];
+            int[] digits = INSTANCE_DIGITS[instance];
+            // Digit 1 per disc, plus 1 per unflippable disc; the other side's discs are digit 3
+            int ownDigits = digits[(int) Long.compress(own, mask)];
+            int oppDigits = digits[(int) Long.compress(opp, mask)];
+            int ownCode = ownDigits + digits[(int) Long.compress(ownUnflippables, mask)] + 3 * oppDigits;
+            int oppCode = oppDigits + digits[(int) Long.compress(oppUnflippables, mask)] + 3 * ownDigits;
+            short[] values = table[INSTANCE_PATTERN[instance]];
+            score += values[ownCode] - values[oppCode];
+        }
+        int[] weights = scalars[phase];
+        score += weights[0] * (Long.bitCount(BitBoard.legalMoves(own, opp, state.unflippables()))
+                - Long.bitCount(BitBoard.legalMoves(opp, own, state.unflippables())));
+        score += weights[1] * (state.bombsLeft(me) - state.bombsLeft(!me));
+        score += weights[2] * (state.unflippablesLeft(me) - state.unflippablesLeft(!me));
+        return score;
+    }
+
+    /**
+     * Returns the pattern tables, indexed by phase, pattern and code. The arrays are not copied.
+     *
+     * @return the tables.
+     */
+    short[][][] tables() {
+        return tables;
+    }
+
+    /**
+     * Returns the scalar weights, indexed by phase and feature. The arrays are not copied.
+     *
+     * @return the weights.
+     */
+    int[][] scalars() {
+        return scalars;
+    }
+
+    /**
+     * Reads a placed pattern as a base-4 number, seen from one player.
+     *
+     * @param instance     the placed pattern, an index into {@link #INSTANCE_SQUARES}.
+     * @param player       the discs of the player.
+     * @param opponent     the discs of the opponent.
+     * @param unflippables the unflippable discs of both players.
+     * @return the code, from 0 to 4^squares - 1.
+     */
+    static int code(int instance, long player, long opponent, long unflippables) {
+        long mask = INSTANCE_MASKS[instance];
+        int[] digits = INSTANCE_DIGITS[instance];
+        return digits[(int) Long.compress(player, mask)] + digits[(int) Long.compress(player & unflippables, mask)]
+                + 3 * digits[(int) Long.compress(opponent, mask)];
+    }
+
+    /**
+     * Returns the phase of a position.
+     *
+     * @param empties the number of empty squares.
+     * @return the phase, from 0 (opening) to {@code PHASES - 1} (endgame).
+     */
+    static int phase(int empties) {
+        return PHASE_OF_EMPTIES[empties];
+    }
+
+    /**
+     * Returns the number of entries of a pattern's table.
+     *
+     * @param pattern the pattern.
+     * @return 4 to the power of the number of squares.
+     */
+    static int tableSize(int pattern) {
+        return 1 << (2 * PATTERN_SQUARES[pattern].length);
+    }
+
+    private static int transform(int square, int symmetry) {
+        int last = BitBoard.SIZE - 1;
+        int row = square / BitBoard.SIZE;
+        int col = square % BitBoard.SIZE;
+        if ((symmetry & 1) != 0) {
+            int swap = row;
+            row = col;
+            col = swap;
+        }
+        if ((symmetry & 2) != 0) row = last - row;
+        if ((symmetry & 4) != 0) col = last - col;
+        return BitBoard.square(row, col);
+    }
+
+    /**
+     * Spreads the value of every square over the patterns that cover it. Each square is worth its
+     * {@link HeuristicEvaluator} value plus the phase's disc value, and an unflippable disc a bonus on top;
+     * the values are halved because each pattern is read from both sides.
+     */
+    private static short[][][] defaultTables() {
+        int[] coverage = new int[BitBoard.SIZE * BitBoard.SIZE];
+        for (int[] squares : INSTANCE_SQUARES) {
+            for (int square : squares) coverage[square]++;
+        }
+        short[][][] tables = new short[PHASES][PATTERN_SQUARES.length][];
+        for (int phase = 0; phase < PHASES; phase++) {
+            int empties = midpoint(phase);
+            int disc = 100 * (60 - empties) / 60;
+            for (int pattern = 0; pattern < PATTERN_SQUARES.length; pattern++) {
+                int[] squares = PATTERN_SQUARES[pattern];
+                // Value of each digit on each square of the pattern
+                double[][] digitValues = new double[squares.length][4];
+                for (int k = 0; k < squares.length; k++) {
+                    double value = (HeuristicEvaluator.SQUARE_VALUES[squares[k]] + disc) / 2.0 / coverage[squares[k]];
+                    double unflippable = HeuristicEvaluator.UNFLIPPABLE_ON_BOARD / (double) coverage[squares[k]];
+                    digitValues[k] = new double[]{0, value, value + unflippable, -value};
+                }
+                short[] table = new short[tableSize(pattern)];
+                for (int code = 0; code < table.length; code++) {
+                    double value = 0;
+                    for (int k = 0, rest = code; k < squares.length; k++, rest >>= 2) value += digitValues[k][rest & 3];
+                    table[code] = (short) Math.round(value);
+                }
+                tables[phase][pattern] = table;
+            }
+        }
+        return tables;
+    }
+
+    private static int[][] defaultScalars() {
+        int[][] scalars = new int[PHASES][];
+        for (int phase = 0; phase < PHASES; phase++) {
+            scalars[phase] = new int[]{
+                    HeuristicEvaluator.MOBILITY * midpoint(phase) / 60,
+                    HeuristicEvaluator.BOMB_IN_HAND,
+                    HeuristicEvaluator.UNFLIPPABLE_IN_HAND
+            };
+        }
+        return scalars;
+    }
+
+    // The number of empty squares in the middle of a phase
+    private static int midpoint(int phase) {
+        return 60 - (2 * phase + 1) * 60 / (2 * PHASES);
+    }
+
+    /**
+     * Loads weights from a file.
+     *
+     * @param file the weights file.
+     * @return the evaluator.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a weights file for these patterns.
+     */
+    public static PatternEvaluator load(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.remaining() < 5 * Integer.BYTES || buffer.getInt() != MAGIC) throw new IllegalArgumentException("Not a weights file");
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported weights version " + version);
+        if (buffer.getInt() != PHASES || buffer.getInt() != PATTERN_SQUARES.length || buffer.getInt() != SCALARS) {
+            throw new IllegalArgumentException("The weights file is for other patterns");
+        }
+        for (int[] squares : PATTERN_SQUARES) {
+            if (buffer.getInt() != squares.length) throw new IllegalArgumentException("The weights file is for other patterns");
+        }
+        if (buffer.remaining() < dataBytes()) throw new IllegalArgumentException("Truncated weights file");
+        short[][][] tables = new short[PHASES][PATTERN_SQUARES.length][];
+        int[][] scalars = new int[PHASES][SCALARS];
+        for (int phase = 0; phase < PHASES; phase++) {
+            for (int pattern = 0; pattern < PATTERN_SQUARES.length; pattern++) {
+                tables[phase][pattern] = new short[tableSize(pattern)];
+                buffer.asShortBuffer().get(tables[phase][pattern]);
+                buffer.position(buffer.position() + tableSize(pattern) * Short.BYTES);
+            }
+            for (int scalar = 0; scalar < SCALARS; scalar++) scalars[phase][scalar] = buffer.getInt();
+        }
+        return new PatternEvaluator(tables, scalars);
+    }
+
+    /**
+     * Writes the weights to a file.
+     *
+     * @param file the file, replaced if it exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((5 + PATTERN_SQUARES.length) * Integer.BYTES + (int) dataBytes())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(PHASES).putInt(PATTERN_SQUARES.length).putInt(SCALARS);
+        for (int[] squares : PATTERN_SQUARES) buffer.putInt(squares.length);
+        for (int phase = 0; phase < PHASES; phase++) {
+            for (short[] table : tables[phase]) {
+                buffer.asShortBuffer().put(table);
+                buffer.position(buffer.position() + table.length * Short.BYTES);
+            }
+            for (int weight : scalars[phase]) buffer.putInt(weight);
+        }
+        Files.write(file, buffer.array());
+    }
+
+    // Size of the weights of all phases in a file
+    private static long dataBytes() {
+        long bytes = 0;
+        for (int pattern = 0; pattern < PATTERN_SQUARES.length; pattern++) bytes += (long) tableSize(pattern) * Short.BYTES;
+        return (bytes + SCALARS * Integer.BYTES) * PHASES;
+    }
+
+    /**
+     * Returns the evaluator configured by the {@code reversi.weights} system property: the weights of that file,
+     * or the default weights if the property is not set. The evaluator is created once and shared.
+     *
+     * @return the evaluator.
+     * @throws UncheckedIOException if the weights file cannot be read.
+     */
+    static PatternEvaluator configured() {
+        return Configured.INSTANCE;
+    }
+
+    // Loads the configured weights on first use
+    private static final class Configured {
+        static final PatternEvaluator INSTANCE = load();
+
+        private static PatternEvaluator load() {
+            String file = System.getProperty("reversi.weights", "");
+            if (file.isEmpty()) return new PatternEvaluator();
+            try {
+                return PatternEvaluator.load(Path.of(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read the weights file " + file, e);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java PatternEvaluator <file>");
+            System.exit(2);
+        }
+        new PatternEvaluator().save(Path.of(args[0]));
+    }
+}
@@ -0,0 +1,490 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Fits the weights of the {@link PatternEvaluator} to recorded games.
+ * <p>
+ * Every position of every game in the {@link GameRecord} files becomes a sample, labeled with the final disc
+ * difference of the game from the point of view of the player to move. The weights are fitted by least squares
+ * with L2 regularization, using mini-batch gradient descent with AdaGrad step sizes, which suits sparse features
+ * like pattern codes: a code seen rarely keeps a large step. One game in ten is held out to measure the error on
+ * positions the trainer has not seen.
+ * <p>
+ * The phases of the evaluator share no weights, so the samples are sharded by phase and the phases are trained at
+ * the same time, without locks. Within a phase, the weights only change between mini-batches, so the positions of
+ * each batch are evaluated on all the threads; their gradients are then summed in sample order. Training therefore
+ * uses every thread given and is reproducible for a given seed, whatever the number of threads.
+ * Positions are kept in memory in a packed form of 29 bytes and their pattern codes are recomputed every epoch.
+ * <p>
+ * Usage: {@code java PatternTrainer <weights> <records...> [--epochs n] [--batch n] [--rate x] [--l2 x]
+ * [--threads n] [--seed n] [--init <weights>]}. The weights are written to the first file and used by the AIs run with
+ * {@code -Dreversi.weights=<weights>}; training starts from the default weights, or from the weights given with
+ * {@code --init}.
+ */
+public class PatternTrainer {
+    // Every how many games one is held out for validation
+    private static final int VALIDATION_INTERVAL = 10;
+    // Keeps AdaGrad steps finite for weights without any gradient yet
+    private static final float EPSILON = 1e-6f;
+    // Positions of a batch evaluated by one task
+    private static final int SLICE = 32;
+
+    /**
+     * Positions of one phase, packed: the discs of the player to move and of the opponent, the unflippable discs,
+     * the scalar features and the target.
+     */
+    static final class Samples {
+        long[] own = new long[1024];
+        long[] opp = new long[1024];
+        long[] unflippables = new long[1024];
+        byte[] mobility = new byte[1024];
+        byte[] bombs = new byte[1024];
+        byte[] unflippablesInHand = new byte[1024];
+        short[] target = new short[1024];
+        int size;
+
+        /**
+         * Adds a position.
+         *
+         * @param state  the position, not over.
+         * @param margin the final disc difference of player 1.
+         */
+        void add(GameState state, int margin) {
+            if (size == own.length) grow(size * 2);
+            boolean me = state.isPlayerOneToMove();
+            long player = state.discs(me);
+            long opponent = state.discs(!me);
+            own[size] = player;
+            opp[size] = opponent;
+            unflippables[size] = state.unflippables();
+            mobility[size] = (byte) (Long.bitCount(BitBoard.legalMoves(player, opponent, state.unflippables()))
+                    - Long.bitCount(BitBoard.legalMoves(opponent, player, state.unflippables())));
+            bombs[size] = (byte) (state.bombsLeft(me) - state.bombsLeft(!me));
+            unflippablesInHand[size] = (byte) (state.unflippablesLeft(me) - state.unflippablesLeft(!me));
+            target[size] = (short) (100 * (me ? margin : -margin));
+            size++;
+        }
+
+        void addAll(Samples other) {
+            if (size + other.size > own.length) grow(Math.max(size + other.size, own.length * 2));
+            System.arraycopy(other.own, 0, own, size, other.size);
+            System.arraycopy(other.opp, 0, opp, size, other.size);
+            System.arraycopy(other.unflippables, 0, unflippables, size, other.size);
+            System.arraycopy(other.mobility, 0, mobility, size, other.size);
+            System.arraycopy(other.bombs, 0, bombs, size, other.size);
+            System.arraycopy(other.unflippablesInHand, 0, unflippablesInHand, size, other.size);
+            System.arraycopy(other.target, 0, target, size, other.size);
+            size += other.size;
+        }
+
+        private void grow(int capacity) {
+            own = Arrays.copyOf(own, capacity);
+            opp = Arrays.copyOf(opp, capacity);
+            unflippables = Arrays.copyOf(unflippables, capacity);
+            mobility = Arrays.copyOf(mobility, capacity);
+            bombs = Arrays.copyOf(bombs, capacity);
+            unflippablesInHand = Arrays.copyOf(unflippablesInHand, capacity);
+            target = Arrays.copyOf(target, capacity);
+        }
+    }
+
+    /**
+     * Training and validation positions of every phase, as collected from a set of games.
+     */
+    static final class SampleSet {
+        final Samples[] training = new Samples[PatternEvaluator.PHASES];
+        final Samples[] validation = new Samples[PatternEvaluator.PHASES];
+
+        SampleSet() {
+            for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+                training[phase] = new Samples();
+                validation[phase] = new Samples();
+            }
+        }
+
+        /**
+         * Replays a game and adds its positions.
+         *
+         * @param game       the game.
+         * @param validating whether the game is held out for validation.
+         */
+        void add(GameRecord game, boolean validating) {
+            Samples[] samples = validating ? validation : training;
+            GameState state = GameState.initial();
+            for (int ply = 0; ply < game.moveCount(); ply++) {
+                int move = game.move(ply);
+                if (!state.isLegal(move)) throw new IllegalArgumentException("Illegal move " + Perft.formatMove(move) + " at ply " + ply);
+                samples[PatternEvaluator.phase(state.empties())].add(state, game.margin());
+                state = state.play(move);
+            }
+        }
+
+        void merge(SampleSet other) {
+            for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+                training[phase].addAll(other.training[phase]);
+                validation[phase].addAll(other.validation[phase]);
+            }
+        }
+    }
+
+    private final SampleSet samples = new SampleSet();
+    // Weights being fitted, [phase][pattern][code] and [phase][scalar], with their AdaGrad sums of squared gradients
+    private final float[][][] tables = new float[PatternEvaluator.PHASES][PatternEvaluator.PATTERN_SQUARES.length][];
+    private final float[][] scalars = new float[PatternEvaluator.PHASES][PatternEvaluator.SCALARS];
+    private final float[][][] tableSquares = new float[PatternEvaluator.PHASES][PatternEvaluator.PATTERN_SQUARES.length][];
+    private final float[][] scalarSquares = new float[PatternEvaluator.PHASES][PatternEvaluator.SCALARS];
+    private final int threads;
+    private final long seed;
+    private int batchSize = 256;
+    private float rate = 10;
+    private float l2 = 1e-4f;
+
+    /**
+     * Creates a trainer.
+     *
+     * @param initial the weights to start from.
+     * @param threads the number of threads to use.
+     * @param seed    the seed of the sample shuffling.
+     */
+    public PatternTrainer(PatternEvaluator initial, int threads, long seed) {
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+        for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+            for (int pattern = 0; pattern < PatternEvaluator.PATTERN_SQUARES.length; pattern++) {
+                short[] table = initial.tables()[phase][pattern];
+                tables[phase][pattern] = new float[table.length];
+                tableSquares[phase][pattern] = new float[table.length];
+                for (int code = 0; code < table.length; code++) tables[phase][pattern][code] = table[code];
+            }
+            for (int scalar = 0; scalar < PatternEvaluator.SCALARS; scalar++) {
+                scalars[phase][scalar] = initial.scalars()[phase][scalar];
+            }
+        }
+    }
+
+    /**
+     * Sets the number of positions per gradient step.
+     *
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Sets the AdaGrad learning rate, the size of the first step of each weight in hundredths of a disc.
+     *
+     * @param rate the learning rate.
+     */
+    public void setRate(float rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Sets the strength of the L2 regularization, which pulls weights seen rarely back towards zero.
+     *
+     * @param l2 the regularization factor.
+     */
+    public void setL2(float l2) {
+        this.l2 = l2;
+    }
+
+    /**
+     * Adds the positions of every game of a record file, in parallel.
+     *
+     * @param reader the games.
+     */
+    public void addGames(GameRecordReader reader) throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            SampleSet added = pool.submit(() -> IntStream.range(0, reader.size()).parallel().collect(
+                    SampleSet::new,
+                    (set, game) -> set.add(reader.get(game), game % VALIDATION_INTERVAL == 0),
+                    SampleSet::merge)).get();
+            samples.merge(added);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the number of training and validation positions.
+     *
+     * @return the two counts.
+     */
+    public long[] sampleCounts() {
+        long[] counts = new long[2];
+        for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+            counts[0] += samples.training[phase].size;
+            counts[1] += samples.validation[phase].size;
+        }
+        return counts;
+    }
+
+    /**
+     * Runs one pass over the training positions, with the phases and the positions of each batch spread over
+     * the threads.
+     *
+     * @param epoch the epoch number, which seeds the shuffling.
+     * @return the root mean square error in discs on the training positions, measured during the pass.
+     */
+    public double epoch(int epoch) throws InterruptedException, ExecutionException {
+        // The batches of every phase split into tasks run by the pool that runs the phases
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            double[] errors = pool.submit(() -> IntStream.range(0, PatternEvaluator.PHASES).parallel()
+                    .mapToDouble(phase -> trainPhase(phase, new Random(seed * 31 + epoch * PatternEvaluator.PHASES + phase)))
+                    .toArray()).get();
+            double error = 0;
+            for (double phaseError : errors) error += phaseError;
+            return inDiscs(error, sampleCounts()[0]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Measures the error of the current weights on the validation positions. The weights are only read,
+     * so the positions of each phase are split over all the threads.
+     *
+     * @return the root mean square error in discs.
+     */
+    public double validationError() throws InterruptedException, ExecutionException {
+        List<Callable<Double>> tasks = new ArrayList<>();
+        for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+            int shard = phase;
+            Samples set = samples.validation[phase];
+            int chunk = Math.max(1, (set.size + threads - 1) / threads);
+            for (int from = 0; from < set.size; from += chunk) {
+                int start = from;
+                int end = Math.min(set.size, from + chunk);
+                tasks.add(() -> squaredError(shard, set, start, end));
+            }
+        }
+        return rootMeanSquare(tasks, sampleCounts()[1]);
+    }
+
+    /**
+     * Runs tasks on the thread pool and turns the sums of squared errors they return into a root mean square
+     * error in discs.
+     */
+    private double rootMeanSquare(List<Callable<Double>> tasks, long count) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+        try {
+            double error = 0;
+            for (Future<Double> future : pool.invokeAll(tasks)) error += future.get();
+            return inDiscs(error, count);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Turns a sum of squared errors over some positions into a root mean square error in discs.
+     */
+    private static double inDiscs(double squaredError, long count) {
+        return Math.sqrt(squaredError / Math.max(1, count)) / 100;
+    }
+
+    /**
+     * Trains the weights of one phase on its positions in random order. The positions of each batch are evaluated
+     * in parallel, then their gradients are summed and applied on this thread in the order of the positions, so the
+     * weights do not depend on the number of threads.
+     *
+     * @return the sum of squared errors seen during the pass.
+     */
+    private double trainPhase(int phase, Random random) {
+        Samples set = samples.training[phase];
+        int[] order = new int[set.size];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        float[][] table = tables[phase];
+        float[][] gradients = new float[table.length][];
+        for (int pattern = 0; pattern < table.length; pattern++) gradients[pattern] = new float[table[pattern].length];
+        float[] scalarGradients = new float[PatternEvaluator.SCALARS];
+        int instances = PatternEvaluator.INSTANCE_SQUARES.length;
+        // Weights touched by the batch, as pattern << 24 | code
+        int[] touched = new int[batchSize * instances * 2];
+        // Residual and pattern codes of every position of the batch, own codes first, then the opponent's
+        float[] residuals = new float[batchSize];
+        int[] codes = new int[batchSize * instances * 2];
+        double error = 0;
+        for (int start = 0; start < order.length; start += batchSize) {
+            int first = start;
+            int end = Math.min(order.length, start + batchSize);
+            IntStream.range(0, (end - start + SLICE - 1) / SLICE).parallel().forEach(slice -> {
+                for (int i = first + slice * SLICE; i < Math.min(end, first + (slice + 1) * SLICE); i++) {
+                    int sample = order[i];
+                    residuals[i - first] = predict(phase, set, sample, codes, (i - first) * instances * 2) - set.target[sample];
+                }
+            });
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                int sample = order[i];
+                float residual = residuals[i - start];
+                int own = (i - start) * instances * 2;
+                int opp = own + instances;
+                error += (double) residual * residual;
+                for (int instance = 0; instance < instances; instance++) {
+                    float[] gradient = gradients[PatternEvaluator.INSTANCE_PATTERN[instance]];
+                    int key = PatternEvaluator.INSTANCE_PATTERN[instance] << 24;
+                    int ownCode = codes[own + instance];
+                    int oppCode = codes[opp + instance];
+                    if (gradient[ownCode] == 0) touched[count++] = key | ownCode;
+                    gradient[ownCode] += residual;
+                    if (gradient[oppCode] == 0) touched[count++] = key | oppCode;
+                    gradient[oppCode] -= residual;
+                }
+                scalarGradients[0] += residual * set.mobility[sample];
+                scalarGradients[1] += residual * set.bombs[sample];
+                scalarGradients[2] += residual * set.unflippablesInHand[sample];
+            }
+            float batch = end - start;
+            for (int i = 0; i < count; i++) {
+                int pattern = touched[i] >>> 24;
+                int code = touched[i] & 0xFFFFFF;
+                float[] gradient = gradients[pattern];
+                // A weight listed twice had its whole gradient applied the first time
+                if (gradient[code] == 0) continue;
+                float[] weights = table[pattern];
+                float[] squares = tableSquares[phase][pattern];
+                float step = gradient[code] / batch + l2 * weights[code];
+                squares[code] += step * step;
+                weights[code] -= rate * step / (float) Math.sqrt(squares[code] + EPSILON);
+                gradient[code] = 0;
+            }
+            for (int scalar = 0; scalar < PatternEvaluator.SCALARS; scalar++) {
+                float step = scalarGradients[scalar] / batch + l2 * scalars[phase][scalar];
+                scalarSquares[phase][scalar] += step * step;
+                scalars[phase][scalar] -= rate * step / (float) Math.sqrt(scalarSquares[phase][scalar] + EPSILON);
+                scalarGradients[scalar] = 0;
+            }
+        }
+        return error;
+    }
+
+    /**
+     * Evaluates a position with the weights being fitted, exactly as {@link PatternEvaluator#evaluate} would,
+     * and writes the codes of the placed patterns from both sides into the buffer: the codes from the side of
+     * the player to move from the offset on, then those from the opponent's side.
+     */
+    private float predict(int phase, Samples set, int sample, int[] codes, int offset) {
+        float[][] table = tables[phase];
+        long own = set.own[sample];
+        long opp = set.opp[sample];
+        long unflippables = set.unflippables[sample];
+        int instances = PatternEvaluator.INSTANCE_SQUARES.length;
+        float score = 0;
+        for (int instance = 0; instance < instances; instance++) {
+            float[] values = table[PatternEvaluator.INSTANCE_PATTERN[instance]];
+            int ownCode = PatternEvaluator.code(instance, own, opp, unflippables);
+            int oppCode = PatternEvaluator.code(instance, opp, own, unflippables);
+            codes[offset + instance] = ownCode;
+            codes[offset + instances + instance] = oppCode;
+            score += values[ownCode] - values[oppCode];
+        }
+        float[] weights = scalars[phase];
+        return score + weights[0] * set.mobility[sample] + weights[1] * set.bombs[sample]
+                + weights[2] * set.unflippablesInHand[sample];
+    }
+
+    /**
+     * Returns the sum of squared errors of the current weights of a phase on a range of positions.
+     */
+    private double squaredError(int phase, Samples set, int from, int to) {
+        int[] codes = new int[PatternEvaluator.INSTANCE_SQUARES.length * 2];
+        double error = 0;
+        for (int sample = from; sample < to; sample++) {
+            double residual = predict(phase, set, sample, codes, 0) - set.target[sample];
+            error += residual * residual;
+        }
+        return error;
+    }
+
+    /**
+     * Rounds the fitted weights into an evaluator.
+     *
+     * @return the evaluator.
+     */
+    public PatternEvaluator toEvaluator() {
+        short[][][] rounded = new short[PatternEvaluator.PHASES][PatternEvaluator.PATTERN_SQUARES.length][];
+        int[][] roundedScalars = new int[PatternEvaluator.PHASES][PatternEvaluator.SCALARS];
+        for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+            for (int pattern = 0; pattern < PatternEvaluator.PATTERN_SQUARES.length; pattern++) {
+                float[] table = tables[phase][pattern];
+                rounded[phase][pattern] = new short[table.length];
+                for (int code = 0; code < table.length; code++) {
+                    rounded[phase][pattern][code] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(table[code])));
+                }
+            }
+            for (int scalar = 0; scalar < PatternEvaluator.SCALARS; scalar++) {
+                roundedScalars[phase][scalar] = Math.round(scalars[phase][scalar]);
+            }
+        }
+        return new PatternEvaluator(rounded, roundedScalars);
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> files = new ArrayList<>();
+        int epochs = 10;
+        int batchSize = 256;
+        float rate = 10;
+        float l2 = 1e-4f;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String init = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--epochs" -> epochs = Integer.parseInt(args[++i]);
+                case "--batch" -> batchSize = Integer.parseInt(args[++i]);
+                case "--rate" -> rate = Float.parseFloat(args[++i]);
+                case "--l2" -> l2 = Float.parseFloat(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--init" -> init = args[++i];
+                default -> files.add(args[i]);
+            }
+        }
+        if (files.size() < 2) {
+            System.err.println("Usage: java PatternTrainer <weights> <records...> [--epochs n] [--batch n] [--rate x] [--l2 x]"
+                    + " [--threads n] [--seed n] [--init <weights>]");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        PatternTrainer trainer = new PatternTrainer(init == null ? new PatternEvaluator() : PatternEvaluator.load(Path.of(init)),
+                threads, seed);
+        trainer.setBatchSize(batchSize);
+        trainer.setRate(rate);
+        trainer.setL2(l2);
+        for (String file : files.subList(1, files.size())) trainer.addGames(GameRecordReader.open(Path.of(file)));
+        long[] counts = trainer.sampleCounts();
+        System.out.printf(Locale.ROOT, "%d training and %d validation positions loaded in %.1f s%n",
+                counts[0], counts[1], (System.nanoTime() - start) / 1e9);
+        System.out.printf(Locale.ROOT, "initial validation error %.2f discs%n", trainer.validationError());
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long epochStart = System.nanoTime();
+            double trainingError = trainer.epoch(epoch);
+            System.out.printf(Locale.ROOT, "epoch %d: training error %.2f discs, validation error %.2f discs (%.1f s)%n",
+                    epoch + 1, trainingError, trainer.validationError(), (System.nanoTime() - epochStart) / 1e9);
+        }
+        trainer.toEvaluator().save(Path.of(files.get(0)));
+        System.out.println("Weights written to " + files.get(0));
+    }
+}
@@ -0,0 +1,480 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the move paths of a given length from a position ("perft"), to check that a move generator
+ * matches the reference rules exactly and to measure how fast it generates moves.
+ * <p>
+ * A move is a square together with the disc placed on it, so a square can be played as a simple disc, and as a
+ * bomb or unflippable disc while the player has any left. The leaf moves are split by disc kind, and moves that
+ * detonate bombs are counted separately, with the ones that set off a chain reaction: a bomb detonated by the
+ * blast of another bomb rather than by the move's lines. Paths on which the game ends early are counted as game
+ * overs and contribute no leaves.
+ * <p>
+ * The count can run on {@link GameState}, the bitboard engine shared by {@link GameLogic} and the AIs, and on
+ * a {@link ReferenceBoard}, which implements the original rules on an array board and shares no move generation
+ * code with it; by default both run and their counts are compared. The root moves are spread over a thread pool.
+ * <p>
+ * Usage: {@code java Perft <depth> [moves...] [--engine=state|reference|both] [--divide] [--threads=N]}, where each
+ * move is a column letter and a row number ({@code d3}), optionally followed by {@code b} for a bomb or
+ * {@code u} for an unflippable disc ({@code d3b}).
+ */
+public class Perft {
+
+    /**
+     * Leaf counts of a perft run.
+     */
+    public static final class Counts {
+        long nodes;
+        long simple;
+        long bomb;
+        long unflippable;
+        // Leaf moves that flip at least one bomb, and those where a bomb is detonated by another bomb's blast
+        long detonations;
+        long chainReactions;
+        // Paths on which the player to move had no legal move before the last ply
+        long gameOvers;
+
+        void addLeaf(DiscKind kind, boolean detonation, boolean chainReaction) {
+            nodes++;
+            switch (kind) {
+                case SIMPLE -> simple++;
+                case BOMB -> bomb++;
+                case UNFLIPPABLE -> unflippable++;
+            }
+            if (detonation) detonations++;
+            if (chainReaction) chainReactions++;
+        }
+
+        void add(Counts other) {
+            nodes += other.nodes;
+            simple += other.simple;
+            bomb += other.bomb;
+            unflippable += other.unflippable;
+            detonations += other.detonations;
+            chainReactions += other.chainReactions;
+            gameOvers += other.gameOvers;
+        }
+
+        public long nodes() {
+            return nodes;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Counts other)) return false;
+            return nodes == other.nodes && simple == other.simple && bomb == other.bomb
+                    && unflippable == other.unflippable && detonations == other.detonations
+                    && chainReactions == other.chainReactions && gameOvers == other.gameOvers;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(nodes * 31 + detonations);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "nodes %d (simple %d, bomb %d, unflippable %d), detonations %d, chain reactions %d, game overs %d",
+                    nodes, simple, bomb, unflippable, detonations, chainReactions, gameOvers);
+        }
+    }
+
+    /**
+     * Counts the paths of a given length on the fast engine.
+     *
+     * @param state the position.
+     * @param depth the number of moves per path, at least 1.
+     * @return the counts.
+     */
+    public static Counts perft(GameState state, int depth) {
+        Counts counts = new Counts();
+        perft(state, depth, counts, new int[depth][SearchEngine.MAX_MOVES]);
+        return counts;
+    }
+
+    private static void perft(GameState state, int depth, Counts counts, int[][] moveLists) {
+        int[] moves = moveLists[depth - 1];
+        int count = state.legalMoves(moves);
+        if (count == 0) {
+            counts.gameOvers++;
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            long flips = state.flips(GameState.square(move));
+            if (depth == 1) {
+                long detonated = flips & state.bombs();
+                boolean chainReaction = false;
+                if (detonated != 0) {
+                    // The flips without any blast: the runs of discs closed in each direction
+                    boolean playerOne = state.isPlayerOneToMove();
+                    long lines = BitBoard.flips(GameState.square(move), state.discs(playerOne), state.discs(!playerOne),
+                            state.unflippables(), 0);
+                    chainReaction = (detonated & ~lines) != 0;
+                }
+                counts.addLeaf(GameState.kind(move), detonated != 0, chainReaction);
+            } else {
+                perft(state.play(move, flips), depth - 1, counts, moveLists);
+            }
+        }
+    }
+
+    /**
+     * Counts the paths of a given length on the reference board.
+     *
+     * @param board the position.
+     * @param depth the number of moves per path, at least 1.
+     * @return the counts.
+     */
+    public static Counts perft(ReferenceBoard board, int depth) {
+        Counts counts = new Counts();
+        perftReference(board, depth, counts);
+        return counts;
+    }
+
+    private static void perftReference(ReferenceBoard board, int depth, Counts counts) {
+        boolean anyMove = false;
+        for (int square = 0; square < ReferenceBoard.SQUARES; square++) {
+            long lines = board.lineFlips(square);
+            if (lines == 0) continue;
+            anyMove = true;
+            long blast = board.blastFlips(lines);
+            for (DiscKind kind : DiscKind.values()) {
+                if (!board.hasDisc(kind)) continue;
+                if (depth == 1) {
+                    counts.addLeaf(kind, board.bombs(lines) != 0, board.bombs(blast) != 0);
+                } else {
+                    perftReference(board.play(square, kind, lines | blast), depth - 1, counts);
+                }
+            }
+        }
+        if (!anyMove) counts.gameOvers++;
+    }
+
+    /**
+     * A position under the original rules of the game, kept on plain arrays: an independent move generator
+     * to check the bitboard engine against. Legal moves are found by walking the eight directions from the
+     * square played, as {@code GameLogic.isValidPos} did, and bomb blasts by visiting the neighbours of each
+     * detonated bomb in turn. Playing a move returns a new board.
+     */
+    static final class ReferenceBoard {
+        static final int SIZE = 8;
+        static final int SQUARES = SIZE * SIZE;
+        private static final int[][] DIRECTIONS = {
+                {0, 1}, {0, -1}, {1, 0}, {-1, 0},
+                {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+        };
+
+        // Owner of each square: 0 if empty, 1 or 2 for a player, and the kind of the disc on it
+        private final int[] owners = new int[SQUARES];
+        private final DiscKind[] kinds = new DiscKind[SQUARES];
+        // Special discs each player has left, indexed by player - 1
+        private final int[] bombsLeft = new int[2];
+        private final int[] unflippablesLeft = new int[2];
+        private int toMove = 1;
+
+        /**
+         * Returns the starting position, with the inventories of {@link Player}.
+         *
+         * @return the starting board.
+         */
+        static ReferenceBoard initial() {
+            ReferenceBoard board = new ReferenceBoard();
+            board.put(3, 3, 1);
+            board.put(4, 4, 1);
+            board.put(3, 4, 2);
+            board.put(4, 3, 2);
+            Arrays.fill(board.bombsLeft, Player.initial_number_of_bombs);
+            Arrays.fill(board.unflippablesLeft, Player.initial_number_of_unflippedable);
+            return board;
+        }
+
+        private void put(int row, int col, int owner) {
+            owners[row * SIZE + col] = owner;
+            kinds[row * SIZE + col] = DiscKind.SIMPLE;
+        }
+
+        /**
+         * Returns the opponent discs a move on a square flips along its lines, skipping unflippable discs.
+         *
+         * @param square the square to play on.
+         * @return a mask of the flipped squares, 0 if the move is not legal.
+         */
+        long lineFlips(int square) {
+            if (owners[square] != 0) return 0;
+            long flips = 0;
+            for (int[] direction : DIRECTIONS) {
+                long run = 0;
+                int row = square / SIZE + direction[0];
+                int col = square % SIZE + direction[1];
+                while (row >= 0 && row < SIZE && col >= 0 && col < SIZE) {
+                    int at = row * SIZE + col;
+                    if (owners[at] == 0) break;
+                    if (owners[at] != toMove) {
+                        if (kinds[at] != DiscKind.UNFLIPPABLE) run |= 1L << at;
+                    } else {
+                        flips |= run;
+                        break;
+                    }
+                    row += direction[0];
+                    col += direction[1];
+                }
+            }
+            return flips;
+        }
+
+        /**
+         * Returns the discs flipped by the blasts of the bombs among a move's line flips: every detonated bomb
+         * flips the opponent's simple discs and bombs around it, and the bombs it flips detonate in turn.
+         *
+         * @param lines the line flips of the move.
+         * @return a mask of the squares flipped by blasts and not already in the lines.
+         */
+        long blastFlips(long lines) {
+            long flipped = 0;
+            boolean[] detonated = new boolean[SQUARES];
+            int[] pending = new int[SQUARES];
+            int count = 0;
+            for (int square = 0; square < SQUARES; square++) {
+                if ((lines >>> square & 1) != 0 && kinds[square] == DiscKind.BOMB) {
+                    detonated[square] = true;
+                    pending[count++] = square;
+                }
+            }
+            while (count > 0) {
+                int bomb = pending[--count];
+                for (int[] direction : DIRECTIONS) {
+                    int row = bomb / SIZE + direction[0];
+                    int col = bomb % SIZE + direction[1];
+                    if (row < 0 || row >= SIZE || col < 0 || col >= SIZE) continue;
+                    int at = row * SIZE + col;
+                    if (owners[at] == 0 || owners[at] == toMove || kinds[at] == DiscKind.UNFLIPPABLE) continue;
+                    flipped |= 1L << at;
+                    if (kinds[at] == DiscKind.BOMB && !detonated[at]) {
+                        detonated[at] = true;
+                        pending[count++] = at;
+                    }
+                }
+            }
+            return flipped & ~lines;
+        }
+
+        /**
+         * Returns the bombs among some squares.
+         *
+         * @param squares a mask of squares.
+         * @return the squares of the mask holding a bomb.
+         */
+        long bombs(long squares) {
+            long bombs = 0;
+            for (int square = 0; square < SQUARES; square++) {
+                if ((squares >>> square & 1) != 0 && kinds[square] == DiscKind.BOMB) bombs |= 1L << square;
+            }
+            return bombs;
+        }
+
+        /**
+         * Checks whether the player to move still has a disc of the given kind.
+         *
+         * @param kind the disc kind.
+         * @return {@code true} if the kind can be placed.
+         */
+        boolean hasDisc(DiscKind kind) {
+            return switch (kind) {
+                case SIMPLE -> true;
+                case BOMB -> bombsLeft[toMove - 1] > 0;
+                case UNFLIPPABLE -> unflippablesLeft[toMove - 1] > 0;
+            };
+        }
+
+        /**
+         * Plays a legal move.
+         *
+         * @param square the square to play on.
+         * @param kind   the kind of disc placed.
+         * @param flips  the squares the move flips, lines and blasts together.
+         * @return the board after the move, with the other player to move.
+         */
+        ReferenceBoard play(int square, DiscKind kind, long flips) {
+            ReferenceBoard next = new ReferenceBoard();
+            System.arraycopy(owners, 0, next.owners, 0, SQUARES);
+            System.arraycopy(kinds, 0, next.kinds, 0, SQUARES);
+            System.arraycopy(bombsLeft, 0, next.bombsLeft, 0, 2);
+            System.arraycopy(unflippablesLeft, 0, next.unflippablesLeft, 0, 2);
+            next.owners[square] = toMove;
+            next.kinds[square] = kind;
+            for (int at = 0; at < SQUARES; at++) {
+                if ((flips >>> at & 1) != 0) next.owners[at] = toMove;
+            }
+            if (kind == DiscKind.BOMB) next.bombsLeft[toMove - 1]--;
+            if (kind == DiscKind.UNFLIPPABLE) next.unflippablesLeft[toMove - 1]--;
+            next.toMove = 3 - toMove;
+            return next;
+        }
+
+        /**
+         * Plays an encoded move.
+         *
+         * @param move the encoded move.
+         * @return the board after the move.
+         * @throws IllegalArgumentException if the move is not legal.
+         */
+        ReferenceBoard play(int move) {
+            int square = GameState.square(move);
+            long lines = lineFlips(square);
+            if (lines == 0 || !hasDisc(GameState.kind(move))) throw new IllegalArgumentException("Illegal move: " + formatMove(move));
+            return play(square, GameState.kind(move), lines | blastFlips(lines));
+        }
+    }
+
+    /**
+     * Parses a move written as a column letter, a row number and an optional disc suffix ({@code d3}, {@code d3b}).
+     *
+     * @param text the move text.
+     * @return the encoded move.
+     * @throws IllegalArgumentException if the text is not a move.
+     */
+    public static int parseMove(String text) {
+        if (text.length() < 2 || text.length() > 3) throw new IllegalArgumentException("Bad move: " + text);
+        int col = Character.toLowerCase(text.charAt(0)) - 'a';
+        int row = text.charAt(1) - '1';
+        if (col < 0 || col >= BitBoard.SIZE || row < 0 || row >= BitBoard.SIZE) throw new IllegalArgumentException("Bad move: " + text);
+        DiscKind kind = DiscKind.SIMPLE;
+        if (text.length() == 3) {
+            kind = switch (Character.toLowerCase(text.charAt(2))) {
+                case 'b' -> DiscKind.BOMB;
+                case 'u' -> DiscKind.UNFLIPPABLE;
+                default -> throw new IllegalArgumentException("Bad move: " + text);
+            };
+        }
+        return GameState.move(BitBoard.square(row, col), kind);
+    }
+
+    /**
+     * Writes a move in the notation read by {@link #parseMove(String)}.
+     *
+     * @param move the encoded move.
+     * @return the move text.
+     */
+    public static String formatMove(int move) {
+        int square = GameState.square(move);
+        String text = "" + (char) ('a' + square % BitBoard.SIZE) + (char) ('1' + square / BitBoard.SIZE);
+        return switch (GameState.kind(move)) {
+            case SIMPLE -> text;
+            case BOMB -> text + "b";
+            case UNFLIPPABLE -> text + "u";
+        };
+    }
+
+    /**
+     * Plays a list of moves from the starting position on a new game.
+     *
+     * @param moves the encoded moves.
+     * @return the game after the moves.
+     * @throws IllegalArgumentException if one of the moves is not legal.
+     */
+    static GameLogic replay(List<Integer> moves) {
+        GameLogic game = new GameLogic();
+        game.setPlayers(new HumanPlayer(true), new HumanPlayer(false));
+        game.reset();
+        // Every move perft plays is look-ahead, so keep it out of the event log
+        game.setSpeculative(true);
+        for (int move : moves) {
+            int square = GameState.square(move);
+            if (!game.locate_disc(square, game.getCurrentPlayer().disc(GameState.kind(move)))) {
+                throw new IllegalArgumentException("Illegal move: " + formatMove(move));
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Runs perft with the root moves spread over a thread pool.
+     *
+     * @param moves   the moves leading to the position.
+     * @param depth   the number of moves per path.
+     * @param reference {@code true} to count on the {@link ReferenceBoard}, {@code false} on {@link GameState}.
+     * @param threads the number of threads.
+     * @param divide  an output to print the count of every root move to, or {@code null}.
+     * @return the total counts.
+     */
+    static Counts run(List<Integer> moves, int depth, boolean reference, int threads, PrintStream divide)
+            throws InterruptedException, ExecutionException {
+        GameState root = replay(moves).snapshot();
+        ReferenceBoard referenceRoot = ReferenceBoard.initial();
+        for (int move : moves) referenceRoot = referenceRoot.play(move);
+        ReferenceBoard board = referenceRoot;
+        int[] rootMoves = new int[SearchEngine.MAX_MOVES];
+        int count = root.legalMoves(rootMoves);
+        Counts total = new Counts();
+        if (depth == 1 || count == 0) {
+            total.add(reference ? perft(board, depth) : perft(root, depth));
+            return total;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Counts>> results = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int move = rootMoves[i];
+                Callable<Counts> task;
+                if (reference) {
+                    task = () -> perft(board.play(move), depth - 1);
+                } else {
+                    task = () -> perft(root.play(move), depth - 1);
+                }
+                results.add(pool.submit(task));
+            }
+            for (int i = 0; i < count; i++) {
+                Counts counts = results.get(i).get();
+                if (divide != null) divide.println("  " + formatMove(rootMoves[i]) + ": " + counts.nodes());
+                total.add(counts);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int depth = args.length < 1 ? 0 : Integer.parseInt(args[0]);
+        if (depth < 1) {
+            System.err.println("Usage: java Perft <depth> [moves...] [--engine=state|reference|both] [--divide] [--threads=N]");
+            System.exit(2);
+        }
+        String engine = "both";
+        boolean divide = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Integer> moves = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--engine=")) engine = args[i].substring("--engine=".length());
+            else if (args[i].equals("--divide")) divide = true;
+            else if (args[i].startsWith("--threads=")) threads = Integer.parseInt(args[i].substring("--threads=".length()));
+            else moves.add(parseMove(args[i]));
+        }
+        PrintStream out = System.out;
+        Counts reference = null;
+        for (String name : new String[]{"state", "reference"}) {
+            if (!engine.equals("both") && !engine.equals(name)) continue;
+            out.println(name + ":");
+            long start = System.nanoTime();
+            Counts counts = run(moves, depth, name.equals("reference"), threads, divide ? out : null);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            out.printf(Locale.ROOT, "  %s%n  %.3f s, %.0f nodes/s%n", counts, seconds, counts.nodes() / seconds);
+            if (reference == null) {
+                reference = counts;
+            } else if (!reference.equals(counts)) {
+                out.println("MISMATCH between state and reference counts");
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -46,6 +46,40 @@ public interface PlayableLogic {
      */
     int countFlips(Position a);
 
+    // Square-index overloads, for code that walks the board and should not create positions.
+    // A square index is row * getBoardSize() + column.
+
+    /**
+     * Attempt to locate a disc on the square with the given index.
+     *
+     * @param square The square index.
+     * @param disc   The disc to place.
+     * @return true if the move is valid and successful, false otherwise.
+     */
+    default boolean locate_disc(int square, Disc disc) {
+        return locate_disc(Position.of(square / getBoardSize(), square % getBoardSize()), disc);
+    }
+
+    /**
+     * Get the disc on the square with the given index.
+     *
+     * @param square The square index.
+     * @return The piece on the square, or null if no disc is present.
+     */
+    default Disc getDiscAtPosition(int square) {
+        return getDiscAtPosition(Position.of(square / getBoardSize(), square % getBoardSize()));
+    }
+
+    /**
+     * The number of discs that will be flipped by placing a disc on the square with the given index.
+     *
+     * @param square The square index.
+     * @return The number of discs that will be flipped.
+     */
+    default int countFlips(int square) {
+        return countFlips(Position.of(square / getBoardSize(), square % getBoardSize()));
+    }
+
     /**
      * Get the first player.
      *
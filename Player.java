@@ -5,9 +5,12 @@ public abstract class Player {
     protected static final int initial_number_of_unflippedable = 2;
     protected int number_of_bombs;
     protected int number_of_unflippedable;
+    // One shared disc of each kind owned by this player, indexed by DiscKind ordinal
+    private final Disc[] discs;
 
     public Player(boolean isPlayerOne) {
         this.isPlayerOne = isPlayerOne;
+        this.discs = new Disc[]{new SimpleDisc(this), new UnflippableDisc(this), new BombDisc(this)};
         reset_bombs_and_unflippedable();
         wins = 0;
     }
@@ -43,6 +46,18 @@ public abstract class Player {
      */
     abstract boolean isHuman();
 
+    /**
+     * Returns the disc of the given kind owned by this player, e.g. to place with {@link PlayableLogic#locate_disc}.
+     * Discs are immutable and every square holding one shares the instance, so a disc changing sides is a board
+     * change rather than a change of the disc, and neither moves nor board reads create discs.
+     *
+     * @param kind the kind of disc.
+     * @return the shared disc.
+     */
+    public Disc disc(DiscKind kind) {
+        return discs[kind.ordinal()];
+    }
+
     public int getNumber_of_bombs() {
         return number_of_bombs;
     }
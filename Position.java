@@ -1,16 +1,49 @@
+/**
+ * A square of the board, given by its row and column.
+ * <p>
+ * Positions are immutable. The 64 positions of the 8x8 board are created once and shared:
+ * {@link #of(int, int)} and {@link #of(int)} return the same instance for the same square, so code that
+ * walks the board allocates nothing. Positions outside the 8x8 board are still created on demand.
+ */
 public class Position {
-    private int row;
-    private int column;
+    // The shared positions of the 8x8 board, indexed by square
+    private static final Position[] SQUARES = new Position[BitBoard.SIZE * BitBoard.SIZE];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new Position(square / BitBoard.SIZE, square % BitBoard.SIZE);
+        }
+    }
+
+    private final int row;
+    private final int column;
 
     public Position(int rows, int columns){
         this.row= rows;
         this.column=columns;
     }
-    void setRows(int rows){
-        this.row=rows;
+
+    /**
+     * Returns the position of a row and column, shared when it is on the 8x8 board.
+     *
+     * @param row the row.
+     * @param col the column.
+     * @return the position.
+     */
+    public static Position of(int row, int col) {
+        if (row >= 0 && row < BitBoard.SIZE && col >= 0 && col < BitBoard.SIZE) return SQUARES[row * BitBoard.SIZE + col];
+        return new Position(row, col);
     }
-    void setColumns(int columns){
-        this.column= columns;
+
+    /**
+     * Returns the shared position of a square of the 8x8 board.
+     *
+     * @param square the square index, row * 8 + column.
+     * @return the position.
+     * @throws ArrayIndexOutOfBoundsException if the square is not on the board.
+     */
+    public static Position of(int square) {
+        return SQUARES[square];
     }
 
     public int col() {
@@ -20,9 +53,29 @@ public class Position {
     public int row() {
         return row;
     }
+
+    /**
+     * Returns the square index of this position on the 8x8 board, as used by {@link BitBoard} and {@link GameState}.
+     *
+     * @return row * 8 + column.
+     */
+    public int square() {
+        return row * BitBoard.SIZE + column;
+    }
+
     @Override
     public boolean equals(Object object){
-        Position position=(Position)object;
+        if (!(object instanceof Position position)) return false;
         return this.row() == position.row() && this.col() == position.col();
     }
+
+    @Override
+    public int hashCode() {
+        return 31 * row + column;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + row + "," + column + ")";
+    }
 }
@@ -1,6 +1,4 @@
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 /**
  * Represents an AI player that makes random moves.
  * The {RandomAI} selects a valid move at random and randomly chooses a disc type for that move.
@@ -12,6 +10,8 @@ import java.util.Random;
  */
 
 public  class RandomAI extends AIPlayer{
+    // The disc kinds a random move picks from
+    private static final DiscKind[] KINDS = DiscKind.values();
     /**
      * Constructs a {RandomAI} player.
      *
@@ -30,21 +30,10 @@ public RandomAI(boolean isPlayerOne){
     @Override
     public Move makeMove(PlayableLogic gameStatus) {
     List<Position> A= gameStatus.ValidMoves();
-    Random random= new Random();
     // Select a random position from the valid moves
     Position randomPos= A.get(random.nextInt(A.size()));
-    // Create different types of discs
-    Disc s1= new SimpleDisc(this);
-    Disc s2= new UnflippableDisc(this);
-    Disc s3= new BombDisc(this);
-    // Add discs to a list
-    List<Disc> discType= new ArrayList<>();
-    discType.add(s1);
-    discType.add(s2);
-    discType.add(s3);
     // Select a random disc type
-    Random random1= new Random();
-    Disc randomDisc= discType.get(random1.nextInt(discType.size()));
+    Disc randomDisc= disc(KINDS[random.nextInt(KINDS.length)]);
     // Return the randomly generated move
     Move moveAI= new Move(randomPos,randomDisc);
             return moveAI;
@@ -0,0 +1,316 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A game-tree search engine: negamax with alpha-beta pruning, principal-variation search,
+ * aspiration windows and iterative deepening.
+ * <p>
+ * The search runs on a private {@link GameState}, deepening one ply at a time until the time or node
+ * budget is spent, and always returns the best move of the deepest iteration it got through
+ * (or a better move found by the unfinished one). A search can also be stopped from another thread
+ * with {@link #stop()}.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, which cuts off positions reached again through
+ * a different move order, and moves are tried in the order chosen by {@link MoveOrdering}.
+ * <p>
+ * An engine instance is not thread-safe; use one engine per searching thread.
+ */
+public class SearchEngine {
+    // Deepest ply the search can reach: the game never lasts more than 60 moves
+    static final int MAX_PLY = 64;
+    // Largest number of moves in a position: every square with each of the three disc kinds
+    static final int MAX_MOVES = 3 * BitBoard.SIZE * BitBoard.SIZE;
+    // Bound larger than any score
+    static final int INFINITY = 10_000_000;
+    // Base score of a won game; the disc margin is added on top of it
+    static final int WIN = 1_000_000;
+    // Half-width of the aspiration window around the previous iteration's score
+    private static final int ASPIRATION = 150;
+    // How many nodes are visited between two checks of the clock
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    // Search budget: a time limit in milliseconds and a node limit, 0 meaning unlimited
+    private long timeLimit;
+    private long nodeLimit;
+    private int maxDepth = MAX_PLY;
+    // First iteration of the deepening loop; helper threads of a parallel search start deeper
+    private int startDepth = 1;
+    // Optional flag shared by the engines of a parallel search; raising it stops them all
+    private AtomicBoolean stopSignal;
+    // State of the running search
+    private volatile boolean stopped;
+    private long nodes;
+    private long deadline;
+    // Move lists for every ply, allocated once
+    private final int[][] moveLists = new int[MAX_PLY + 1][MAX_MOVES];
+    private final MoveOrdering ordering = new MoveOrdering();
+
+    /**
+     * Creates an engine that scores leaf positions with the given evaluator and has its own 16 MB transposition table.
+     *
+     * @param evaluator the evaluation function.
+     */
+    public SearchEngine(Evaluator evaluator) {
+        this(evaluator, new TranspositionTable(16));
+    }
+
+    /**
+     * Creates an engine that scores leaf positions with the given evaluator and stores results in the given table.
+     * The table may be shared with engines searching on other threads.
+     *
+     * @param evaluator the evaluation function.
+     * @param table     the transposition table.
+     */
+    public SearchEngine(Evaluator evaluator, TranspositionTable table) {
+        this.evaluator = evaluator;
+        this.table = table;
+    }
+
+    /**
+     * Returns the transposition table of this engine.
+     *
+     * @return the table.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Sets the time budget of each search.
+     *
+     * @param millis the budget in milliseconds, or 0 for no time limit.
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimit = millis;
+    }
+
+    /**
+     * Sets the node budget of each search.
+     *
+     * @param nodes the maximum number of positions to visit, or 0 for no node limit.
+     */
+    public void setNodeLimit(long nodes) {
+        this.nodeLimit = nodes;
+    }
+
+    /**
+     * Sets the deepest iteration the search may reach.
+     *
+     * @param depth the maximum depth in plies.
+     */
+    public void setMaxDepth(int depth) {
+        this.maxDepth = Math.max(1, Math.min(depth, MAX_PLY));
+    }
+
+    /**
+     * Sets the depth of the first iteration. Searching a shallower depth first gives better move ordering,
+     * so only helper threads of a parallel search, which rely on the shared table, start deeper.
+     *
+     * @param depth the first depth to search.
+     */
+    void setStartDepth(int depth) {
+        this.startDepth = Math.max(1, depth);
+    }
+
+    /**
+     * Shares a stop flag with other engines. The search stops once the flag is raised,
+     * whether that happens before or during the search.
+     *
+     * @param signal the shared flag, or {@code null} to stop only through {@link #stop()}.
+     */
+    void setStopSignal(AtomicBoolean signal) {
+        this.stopSignal = signal;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. The search still returns its best move so far.
+     * A search that has not started yet is not affected; stop it through its stop signal instead.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Searches a position and returns the best move found within the budget.
+     *
+     * @param root the position to search; the player to move must have a legal move.
+     * @return the chosen move with the search statistics.
+     * @throws IllegalStateException if the player to move has no legal move.
+     */
+    public SearchResult search(GameState root) {
+        long start = System.nanoTime();
+        // A stop signal raised before the search started still stops it
+        stopped = stopSignal != null && stopSignal.get();
+        nodes = 0;
+        deadline = timeLimit > 0 ? start + timeLimit * 1_000_000 : Long.MAX_VALUE;
+        int[] moves = new int[MAX_MOVES];
+        int count = root.legalMoves(moves);
+        if (count == 0) throw new IllegalStateException("No valid moves available");
+        table.newSearch();
+        ordering.newSearch();
+        long entry = table.probe(root.hash());
+        ordering.order(root, moves, count, entry != 0 ? TranspositionTable.move(entry) : -1, 0, maxDepth);
+        int bestMove = moves[0];
+        int bestScore = 0;
+        int completedDepth = 0;
+        if (count > 1) {
+            int previous = 0;
+            for (int depth = Math.min(startDepth, maxDepth); depth <= maxDepth; depth++) {
+                int alpha = -INFINITY;
+                int beta = INFINITY;
+                if (depth >= 3) {
+                    alpha = previous - ASPIRATION;
+                    beta = previous + ASPIRATION;
+                }
+                int score;
+                // Search inside the aspiration window, opening it on the side that failed
+                while (true) {
+                    score = searchRoot(root, moves, count, depth, alpha, beta);
+                    if (stopped) break;
+                    if (score <= alpha) alpha = -INFINITY;
+                    else if (score >= beta) beta = INFINITY;
+                    else break;
+                }
+                // Only moves proven better than alpha reach the front, so even an unfinished or failed-low iteration
+                // leaves a trustworthy move there
+                bestMove = moves[0];
+                if (stopped) break;
+                bestScore = previous = score;
+                completedDepth = depth;
+                table.store(root.hash(), bestMove, score, depth, TranspositionTable.EXACT);
+                // Stop when the game is solved or when the next iteration would not finish in time
+                if (Math.abs(score) >= WIN || depth >= root.empties()) break;
+                if (timeLimit > 0 && System.nanoTime() - start > (deadline - start) / 2) break;
+            }
+        }
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Searches the root moves, moving every move that raises alpha to the front of the list. When every move fails
+     * low, the front move stays the best move of the previous iteration.
+     *
+     * @return the best score, or 0 if the search was stopped.
+     */
+    private int searchRoot(GameState root, int[] moves, int count, int depth, int alpha, int beta) {
+        int best = -INFINITY;
+        for (int i = 0; i < count; i++) {
+            GameState child = root.play(moves[i]);
+            int score;
+            if (i == 0) {
+                score = -negamax(child, depth - 1, -beta, -alpha, 1);
+            } else {
+                score = -negamax(child, depth - 1, -alpha - 1, -alpha, 1);
+                if (score > alpha && score < beta && !stopped) {
+                    score = -negamax(child, depth - 1, -beta, -alpha, 1);
+                }
+            }
+            if (stopped) return 0;
+            if (score > best) best = score;
+            // A score at or below alpha is only an upper bound, so it never displaces the move in front
+            if (score > alpha) {
+                int move = moves[i];
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                alpha = score;
+                if (alpha >= beta) break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Negamax search with alpha-beta pruning and principal-variation search.
+     *
+     * @param state the position to search.
+     * @param depth the remaining depth.
+     * @param alpha the lower bound.
+     * @param beta  the upper bound.
+     * @param ply   the distance from the root.
+     * @return the score from the point of view of the player to move.
+     */
+    private int negamax(GameState state, int depth, int alpha, int beta, int ply) {
+        if (++nodes % CHECK_INTERVAL == 0) checkLimits();
+        if (stopped) return 0;
+        if (state.isGameOver()) return terminalScore(state);
+        if (depth <= 0) return evaluator.evaluate(state);
+        // Use the stored result if it was searched deep enough, otherwise search its best move first
+        long key = state.hash();
+        long entry = table.probe(key);
+        if (entry != 0 && TranspositionTable.depth(entry) >= depth) {
+            int score = TranspositionTable.score(entry);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+        int[] moves = moveLists[ply];
+        int count = state.legalMoves(moves);
+        ordering.order(state, moves, count, entry != 0 ? TranspositionTable.move(entry) : -1, ply, depth);
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            GameState child = state.play(moves[i]);
+            int score;
+            if (i == 0) {
+                score = -negamax(child, depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                // Prove the move is no better than the current best with a null window, re-search only if it is
+                score = -negamax(child, depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta && !stopped) {
+                    score = -negamax(child, depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            if (stopped) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = moves[i];
+                if (score > alpha) alpha = score;
+                if (alpha >= beta) {
+                    ordering.recordCutoff(state, moves[i], ply, depth);
+                    break;
+                }
+            }
+        }
+        int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, bestMove, best, depth, bound);
+        return best;
+    }
+
+    /**
+     * Scores a finished game: a win or loss by the disc margin, from the point of view of the player to move.
+     *
+     * @param state the finished position.
+     * @return the terminal score.
+     */
+    static int terminalScore(GameState state) {
+        int difference = state.discDifference();
+        if (difference > 0) return WIN + difference;
+        if (difference < 0) return -WIN + difference;
+        return 0;
+    }
+
+    /**
+     * Stops the search once the time or node budget is spent, or when the shared stop flag is raised.
+     */
+    private void checkLimits() {
+        if ((nodeLimit > 0 && nodes >= nodeLimit) || System.nanoTime() >= deadline
+                || (stopSignal != null && stopSignal.get())) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Returns the number of positions visited by the last search.
+     *
+     * @return the node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * The outcome of a search: the chosen move and statistics about how it was found.
+ *
+ * @see SearchEngine#search(GameState)
+ */
+public final class SearchResult {
+    private final int move;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+
+    /**
+     * Creates a search result.
+     *
+     * @param move   the best move found, encoded as in {@link GameState#move(int, DiscKind)}.
+     * @param score  the score of the move from the point of view of the player to move.
+     * @param depth  the deepest fully completed iteration.
+     * @param nodes  the number of positions visited.
+     * @param millis the time spent searching, in milliseconds.
+     */
+    public SearchResult(int move, int score, int depth, long nodes, long millis) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    public int move() {
+        return move;
+    }
+
+    public int score() {
+        return score;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        int square = GameState.square(move);
+        return "move " + GameState.kind(move) + " (" + square / BitBoard.SIZE + "," + square % BitBoard.SIZE + ")"
+                + " score " + score + " depth " + depth + " nodes " + nodes + " time " + millis + "ms";
+    }
+}
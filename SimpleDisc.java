@@ -1,10 +1,11 @@
 public class SimpleDisc implements Disc{
     /**
      * Represents a basic disc used in the game.
-     * The { SimpleDisc} is associated with a player and can change ownership during gameplay.
+     * The { SimpleDisc} is associated with a player for good; it changes sides during gameplay by being
+     * replaced with the other player's disc.
      * It displays a simple disc symbol ("⬤") as its type.
      */
-    private Player player;
+    private final Player player;
 
     public SimpleDisc(Player player){
         this.player= player;
@@ -14,13 +15,25 @@ public class SimpleDisc implements Disc{
         return this.player;
     }
 
+    /**
+     * Discs are immutable and shared by every square they are on; the board swaps in the other player's disc instead.
+     *
+     * @throws UnsupportedOperationException always.
+     * @deprecated use the other player's disc, from {@link Player#disc(DiscKind)}.
+     */
+    @Deprecated
     @Override
     public void setOwner(Player player) {
-    this.player=player;
+        throw new UnsupportedOperationException("Discs are immutable");
     }
 
     @Override
     public String getType() {
         return "⬤";
     }
+
+    @Override
+    public DiscKind kind() {
+        return DiscKind.SIMPLE;
+    }
 }
@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only {@link PlayableLogic} over a {@link GameState}, for handing a position to an AI on another thread.
+ * <p>
+ * The state is immutable and holds the bomb and unflippable inventories of both players, so the view keeps
+ * showing the position it was taken from whatever happens to the game afterwards: moves, undo or a new game.
+ * The players are only used as the owners of the discs and to tell the sides apart; their own inventory counters
+ * are never read. Methods that would change the game throw {@link UnsupportedOperationException}.
+ */
+public class SnapshotLogic implements PlayableLogic {
+    private final GameState state;
+    private final Player player1;
+    private final Player player2;
+
+    /**
+     * Creates a view of a position.
+     *
+     * @param state   the position.
+     * @param player1 the first player, owner of the first player's discs.
+     * @param player2 the second player.
+     */
+    public SnapshotLogic(GameState state, Player player1, Player player2) {
+        this.state = state;
+        this.player1 = player1;
+        this.player2 = player2;
+    }
+
+    /**
+     * Takes a view of the current position of a game.
+     *
+     * @param game the game.
+     * @return a view that does not change with the game.
+     */
+    public static SnapshotLogic of(GameLogic game) {
+        return new SnapshotLogic(game.snapshot(), game.getFirstPlayer(), game.getSecondPlayer());
+    }
+
+    /**
+     * Returns the position of this view.
+     *
+     * @return the state.
+     */
+    public GameState state() {
+        return state;
+    }
+
+    @Override
+    public boolean locate_disc(Position a, Disc disc) {
+        throw new UnsupportedOperationException("A snapshot cannot be played on");
+    }
+
+    /**
+     * Gets the disc at a position: the shared disc of its owner and kind.
+     *
+     * @param position the position to check.
+     * @return the disc, or {@code null} if the square is empty.
+     */
+    @Override
+    public Disc getDiscAtPosition(Position position) {
+        return getDiscAtPosition(position.square());
+    }
+
+    @Override
+    public Disc getDiscAtPosition(int square) {
+        long bit = BitBoard.bit(square);
+        Player owner = (state.discs(true) & bit) != 0 ? player1 : (state.discs(false) & bit) != 0 ? player2 : null;
+        if (owner == null) return null;
+        DiscKind kind = (state.bombs() & bit) != 0 ? DiscKind.BOMB
+                : (state.unflippables() & bit) != 0 ? DiscKind.UNFLIPPABLE : DiscKind.SIMPLE;
+        return owner.disc(kind);
+    }
+
+    @Override
+    public int getBoardSize() {
+        return BitBoard.SIZE;
+    }
+
+    /**
+     * Lists the squares the player to move can play on, in row-major order.
+     *
+     * @return the legal positions.
+     */
+    @Override
+    public List<Position> ValidMoves() {
+        List<Position> legalMoves = new ArrayList<>();
+        for (long moves = state.legalSquares(); moves != 0; moves &= moves - 1) {
+            legalMoves.add(Position.of(Long.numberOfTrailingZeros(moves)));
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Counts the discs that a simple disc placed at a position would flip.
+     *
+     * @param a the position.
+     * @return the number of flipped discs, or 0 if the move is not valid.
+     */
+    @Override
+    public int countFlips(Position a) {
+        return countFlips(a.square());
+    }
+
+    @Override
+    public int countFlips(int square) {
+        return Long.bitCount(state.flips(square));
+    }
+
+    @Override
+    public Player getFirstPlayer() {
+        return player1;
+    }
+
+    @Override
+    public Player getSecondPlayer() {
+        return player2;
+    }
+
+    @Override
+    public void setPlayers(Player player1, Player player2) {
+        throw new UnsupportedOperationException("A snapshot cannot change players");
+    }
+
+    @Override
+    public boolean isFirstPlayerTurn() {
+        return state.isPlayerOneToMove();
+    }
+
+    /**
+     * Checks whether the player to move has no legal move. Unlike {@link GameLogic#isGameFinished()}, no win is
+     * counted and no event is sent.
+     *
+     * @return {@code true} if the game is over.
+     */
+    @Override
+    public boolean isGameFinished() {
+        return state.isGameOver();
+    }
+
+    @Override
+    public void reset() {
+        throw new UnsupportedOperationException("A snapshot cannot be reset");
+    }
+
+    @Override
+    public void undoLastMove() {
+        throw new UnsupportedOperationException("A snapshot cannot undo moves");
+    }
+}
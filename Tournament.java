@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays many games between two AI types without a display and reports the results.
+ * <p>
+ * Games run in parallel on a thread pool. Each game gets its own seed derived from the tournament seed and
+ * its own new AIs, which carry no search tables or move statistics over from earlier games, and the two AI types
+ * swap colors every game, so a run is reproducible, whatever the number of threads, for AIs whose choices depend
+ * only on their seed and a node budget. The report gives the win/draw/loss record of the first AI, the average disc margin,
+ * the throughput in games per second and the average and worst think time per move of each AI.
+ * <p>
+ * Usage: {@code java Tournament <firstAI> <secondAI> [games] [threads] [seed]}
+ * The moves of every game can be logged with {@code -Dreversi.events=json:<file>}, each event tagged with the
+ * game number, and the games appended to a {@link GameRecord} file with {@code -Dreversi.records=<file>}.
+ * <p>
+ * Each thread holds the two AIs of its game, so unless {@code reversi.hash.mb} is given, the transposition table
+ * of each AI is sized so that all of them together, with the quarter-size tables of the {@link AlphaBetaAI} endgame
+ * solvers, take about {@value #HASH_BUDGET_MB} MB.
+ */
+public class Tournament {
+    // An AI that keeps returning moves the game refuses is considered broken after this many attempts
+    private static final int MAX_ATTEMPTS = 1000;
+    // Total size in megabytes of the transposition tables of all AIs, endgame solvers included, when reversi.hash.mb
+    // is not set
+    static final int HASH_BUDGET_MB = 256;
+
+    private final String firstType;
+    private final String secondType;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * Creates a tournament between two registered AI types.
+     *
+     * @param firstType  the first AI type, as listed by {@link AIPlayer#getAIPlayerTypes()}.
+     * @param secondType the second AI type.
+     * @param threads    the number of games played at the same time.
+     * @param seed       the seed all game seeds are derived from.
+     */
+    public Tournament(String firstType, String secondType, int threads, long seed) {
+        this.firstType = firstType;
+        this.secondType = secondType;
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+    }
+
+    /**
+     * The outcome of one game, from the point of view of the first AI.
+     *
+     * @param margin       the first AI's discs minus the second AI's discs.
+     * @param moves        the number of moves made by each AI.
+     * @param thinkNanos   the total think time of each AI.
+     * @param maxThinkNanos the longest single think time of each AI.
+     * @param record       the game, to be saved.
+     */
+    record GameResult(int margin, int[] moves, long[] thinkNanos, long[] maxThinkNanos, GameRecord record) {
+    }
+
+    /**
+     * Plays one game.
+     *
+     * @param game the game number; the first AI plays first in even games.
+     * @return the result of the game.
+     */
+    GameResult playGame(int game) {
+        boolean firstStarts = game % 2 == 0;
+        AIPlayer player1 = AIPlayer.createAIPlayer(firstStarts ? firstType : secondType, true);
+        AIPlayer player2 = AIPlayer.createAIPlayer(firstStarts ? secondType : firstType, false);
+        try {
+            return playGame(game, player1, player2);
+        } finally {
+            player1.close();
+            player2.close();
+        }
+    }
+
+    private GameResult playGame(int game, AIPlayer player1, AIPlayer player2) {
+        boolean firstStarts = game % 2 == 0;
+        long gameSeed = seed * 0x9E3779B97F4A7C15L + game;
+        player1.setSeed(gameSeed);
+        player2.setSeed(~gameSeed);
+        GameLogic logic = new GameLogic();
+        logic.setPlayers(player1, player2);
+        logic.reset();
+        logic.setGameId(game);
+        int[] moves = new int[2];
+        long[] thinkNanos = new long[2];
+        long[] maxThinkNanos = new long[2];
+        while (!logic.ValidMoves().isEmpty()) {
+            AIPlayer current = logic.isFirstPlayerTurn() ? player1 : player2;
+            // Index of the AI to move: 0 for the first AI, 1 for the second
+            int ai = (current == player1) == firstStarts ? 0 : 1;
+            for (int attempt = 0; ; attempt++) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new IllegalStateException(current.getClass().getSimpleName() + " keeps making illegal moves");
+                }
+                long start = System.nanoTime();
+                Move move = current.makeMove(logic);
+                long elapsed = System.nanoTime() - start;
+                thinkNanos[ai] += elapsed;
+                maxThinkNanos[ai] = Math.max(maxThinkNanos[ai], elapsed);
+                if (logic.locate_disc(move.position(), move.disc())) break;
+            }
+            moves[ai]++;
+        }
+        GameRecord record = GameRecord.of(logic, firstStarts ? firstType : secondType,
+                firstStarts ? secondType : firstType, gameSeed, ~gameSeed);
+        return new GameResult(firstStarts ? record.margin() : -record.margin(), moves, thinkNanos, maxThinkNanos, record);
+    }
+
+    /**
+     * Plays the given number of games and prints the report.
+     *
+     * @param games the number of games.
+     * @param out   where to print the report.
+     */
+    public void run(int games, PrintStream out) throws InterruptedException, ExecutionException, IOException {
+        String recordFile = System.getProperty("reversi.records", "");
+        try (GameRecordWriter records = recordFile.isEmpty() ? null : new GameRecordWriter(Path.of(recordFile))) {
+            run(games, out, records);
+        }
+    }
+
+    /**
+     * Plays the given number of games, prints the report and saves the games.
+     *
+     * @param games   the number of games.
+     * @param out     where to print the report.
+     * @param records where to append the games, in game order, or {@code null}.
+     */
+    public void run(int games, PrintStream out, GameRecordWriter records)
+            throws InterruptedException, ExecutionException, IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<GameResult>> futures = new ArrayList<>(games);
+        for (int game = 0; game < games; game++) {
+            int number = game;
+            futures.add(pool.submit(() -> playGame(number)));
+        }
+        int wins = 0, draws = 0, losses = 0;
+        long margins = 0;
+        long[] moves = new long[2];
+        long[] thinkNanos = new long[2];
+        long[] maxThinkNanos = new long[2];
+        try {
+            for (Future<GameResult> future : futures) {
+                GameResult result = future.get();
+                if (records != null) records.write(result.record());
+                if (result.margin() > 0) wins++;
+                else if (result.margin() < 0) losses++;
+                else draws++;
+                margins += result.margin();
+                for (int ai = 0; ai < 2; ai++) {
+                    moves[ai] += result.moves()[ai];
+                    thinkNanos[ai] += result.thinkNanos()[ai];
+                    maxThinkNanos[ai] = Math.max(maxThinkNanos[ai], result.maxThinkNanos()[ai]);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            // Games cut short still close their AIs; wait for them so no AI outlives the run
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String[] names = {firstType, secondType};
+        out.printf(Locale.ROOT, "%s vs %s: %d games on %d threads, seed %d%n", firstType, secondType, games, threads, seed);
+        out.printf(Locale.ROOT, "  %s wins %d, draws %d, losses %d (score %.1f%%)%n", firstType, wins, draws, losses,
+                games == 0 ? 0 : 100.0 * (wins + 0.5 * draws) / games);
+        out.printf(Locale.ROOT, "  average disc margin %+.2f%n", games == 0 ? 0 : (double) margins / games);
+        out.printf(Locale.ROOT, "  %.1f games/s (%.1f s)%n", games / seconds, seconds);
+        for (int ai = 0; ai < 2; ai++) {
+            out.printf(Locale.ROOT, "  %s: %d moves, %.3f ms/move average, %.3f ms worst%n", names[ai], moves[ai],
+                    moves[ai] == 0 ? 0 : thinkNanos[ai] / 1e6 / moves[ai], maxThinkNanos[ai] / 1e6);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        AIPlayer.registerAllAIPlayers();
+        List<String> types = AIPlayer.getAIPlayerTypes();
+        if (args.length < 2 || !types.contains(args[0]) || !types.contains(args[1])) {
+            System.err.println("Usage: java Tournament <firstAI> <secondAI> [games] [threads] [seed]");
+            System.err.println("AI types: " + types);
+            System.exit(2);
+        }
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+        if (System.getProperty("reversi.hash.mb") == null) {
+            // Each AI gets its share of the budget, four fifths for the search and one fifth for the solver
+            long share = HASH_BUDGET_MB / (2L * Math.max(1, threads));
+            System.setProperty("reversi.hash.mb", String.valueOf(Math.max(1, share * 4 / 5)));
+        }
+        new Tournament(args[0], args[1], threads, seed).run(games, System.out);
+    }
+}
@@ -0,0 +1,182 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A transposition table that remembers search results by position hash.
+ * <p>
+ * The table lives off-heap in direct buffers, so even multi-gigabyte tables add nothing to the
+ * garbage collector's work. Each entry is two longs: the packed data and the position key XOR the data.
+ * A probe only accepts an entry when the two words XOR back to the key, so an entry half-written
+ * by another thread is simply seen as a miss. This lets several search threads share one table without locks.
+ * <p>
+ * Entries are grouped in buckets of two: the first slot keeps the deepest result, the second
+ * always takes the newest one.
+ */
+public class TranspositionTable {
+    // Kinds of score bounds stored with an entry
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+    // Bytes per entry (two longs) and entries per bucket
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 2;
+    // Largest buffer allocated at once; bigger tables are split over several buffers
+    private static final int SEGMENT_BYTES = 1 << 30;
+    // Atomic (opaque) long access to the direct buffers
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    // Layout of the data word: move + 1 (0 = no move), depth, bound, generation, a bit that is
+    // always set so stored data is never 0, and the score in the upper half
+    private static final int MOVE_BITS = 10;
+    private static final int DEPTH_SHIFT = MOVE_BITS;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + 7;
+    private static final int AGE_SHIFT = BOUND_SHIFT + 2;
+    private static final long USED = 1L << (AGE_SHIFT + 8);
+    private static final int SCORE_SHIFT = 32;
+
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final long bucketMask;
+    // Incremented for every new search so results of old searches are replaced first
+    private volatile int generation;
+
+    /**
+     * Allocates a table of (at most) the given size, rounded down to a power of two buckets.
+     *
+     * @param megabytes the size of the table in megabytes.
+     */
+    public TranspositionTable(long megabytes) {
+        long bytes = Long.highestOneBit(Math.max(1, megabytes) << 20);
+        int segmentBytes = (int) Math.min(bytes, SEGMENT_BYTES);
+        segments = new ByteBuffer[(int) (bytes / segmentBytes)];
+        for (int i = 0; i < segments.length; i++) {
+            // Allocate a little more so the buffer can be aligned for atomic long access
+            segments[i] = ByteBuffer.allocateDirect(segmentBytes + Long.BYTES).alignedSlice(Long.BYTES).order(ByteOrder.nativeOrder());
+        }
+        segmentShift = Integer.numberOfTrailingZeros(segmentBytes);
+        bucketMask = bytes / (ENTRY_BYTES * BUCKET_ENTRIES) - 1;
+    }
+
+    /**
+     * Marks the start of a new search; entries stored by earlier searches become the first to be replaced.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for (ByteBuffer segment : segments) {
+            for (int offset = 0; offset < segment.capacity(); offset += Long.BYTES) {
+                LONGS.setOpaque(segment, offset, 0L);
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the table.
+     *
+     * @return the number of entries the table can hold.
+     */
+    public long capacity() {
+        return (bucketMask + 1) * BUCKET_ENTRIES;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the position hash.
+     * @return the packed entry data (read with {@link #move(long)}, {@link #score(long)}, {@link #depth(long)}
+     * and {@link #bound(long)}), or 0 if the position is not in the table.
+     */
+    public long probe(long key) {
+        long bucket = (key & bucketMask) * BUCKET_ENTRIES * ENTRY_BYTES;
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            long offset = bucket + (long) i * ENTRY_BYTES;
+            long check = read(offset);
+            long data = read(offset + Long.BYTES);
+            if (data != 0 && (check ^ data) == key) return data;
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     *
+     * @param key   the position hash.
+     * @param move  the best move, or -1 if there is none.
+     * @param score the score.
+     * @param depth the depth the position was searched to.
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int age = generation;
+        long data = (move + 1L) | (long) Math.min(depth, 127) << DEPTH_SHIFT | (long) bound << BOUND_SHIFT
+                | (long) age << AGE_SHIFT | USED | (long) score << SCORE_SHIFT;
+        long bucket = (key & bucketMask) * BUCKET_ENTRIES * ENTRY_BYTES;
+        // The first slot keeps the deepest result of the current search, or the same position when it is seen again
+        long old = read(bucket + Long.BYTES);
+        long oldKey = read(bucket) ^ old;
+        long offset = bucket;
+        if (old != 0 && oldKey != key && ageOf(old) == age && depth(old) > depth) {
+            offset = bucket + ENTRY_BYTES;
+        }
+        write(offset, key ^ data);
+        write(offset + Long.BYTES, data);
+    }
+
+    /**
+     * Returns the best move of an entry.
+     *
+     * @param data the entry data returned by {@link #probe(long)}.
+     * @return the move, or -1 if the entry has none.
+     */
+    public static int move(long data) {
+        return (int) (data & ((1 << MOVE_BITS) - 1)) - 1;
+    }
+
+    /**
+     * Returns the score of an entry.
+     *
+     * @param data the entry data returned by {@link #probe(long)}.
+     * @return the stored score.
+     */
+    public static int score(long data) {
+        return (int) (data >> SCORE_SHIFT);
+    }
+
+    /**
+     * Returns the search depth of an entry.
+     *
+     * @param data the entry data returned by {@link #probe(long)}.
+     * @return the depth the stored score is valid for.
+     */
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0x7F;
+    }
+
+    /**
+     * Returns the kind of bound of an entry.
+     *
+     * @param data the entry data returned by {@link #probe(long)}.
+     * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     */
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int ageOf(long data) {
+        return (int) (data >>> AGE_SHIFT) & 0xFF;
+    }
+
+    private long read(long offset) {
+        return (long) LONGS.getOpaque(segments[(int) (offset >>> segmentShift)], (int) (offset & ((1L << segmentShift) - 1)));
+    }
+
+    private void write(long offset, long value) {
+        LONGS.setOpaque(segments[(int) (offset >>> segmentShift)], (int) (offset & ((1L << segmentShift) - 1)), value);
+    }
+}
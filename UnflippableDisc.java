@@ -4,7 +4,7 @@ public class UnflippableDisc implements Disc{
      * The {UnflippableDisc} is associated with a player and retains its ownership even during gameplay.
      * It is represented by a distinct symbol ("⭕").
      */
-    private Player player;
+    private final Player player;
 
     public UnflippableDisc(Player player){
         this.player=player;
@@ -14,13 +14,25 @@ public class UnflippableDisc implements Disc{
         return this.player;
     }
 
+    /**
+     * Discs are immutable and shared by every square they are on; the board swaps in the other player's disc instead.
+     *
+     * @throws UnsupportedOperationException always.
+     * @deprecated use the other player's disc, from {@link Player#disc(DiscKind)}.
+     */
+    @Deprecated
     @Override
     public void setOwner(Player player) {
-        this.player=player;
+        throw new UnsupportedOperationException("Discs are immutable");
     }
 
     @Override
     public String getType() {
         return "⭕" ;
     }
+
+    @Override
+    public DiscKind kind() {
+        return DiscKind.UNFLIPPABLE;
+    }
 }
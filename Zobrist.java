@@ -0,0 +1,127 @@
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for hashing game states.
+ * A position's hash is the XOR of one random key per occupied square (by owner and disc kind),
+ * one key per player for the number of bombs and unflippable discs still in hand,
+ * and a key for the player to move. Because XOR is its own inverse, a move updates the hash
+ * by toggling only the keys of the squares and inventories it changes.
+ */
+public final class Zobrist {
+    // Largest inventory count that has its own key; Player never hands out more than this
+    private static final int MAX_INVENTORY = 8;
+    // Keys indexed by [player (0 = player 1)][disc kind][square]
+    private static final long[][][] SQUARES = new long[2][DiscKind.values().length][BitBoard.SIZE * BitBoard.SIZE];
+    // XOR of both players' keys for a kind and square, toggled when the disc changes owner
+    private static final long[][] FLIPS = new long[DiscKind.values().length][BitBoard.SIZE * BitBoard.SIZE];
+    // Keys indexed by [player][number left]
+    private static final long[][] BOMBS = new long[2][MAX_INVENTORY + 1];
+    private static final long[][] UNFLIPPABLES = new long[2][MAX_INVENTORY + 1];
+    // Toggled when player 2 is to move
+    private static final long SIDE;
+
+    static {
+        // A fixed seed keeps hashes identical between runs, so they can be stored in files
+        SplittableRandom random = new SplittableRandom(0x5EED_2025L);
+        for (long[][] player : SQUARES)
+            for (long[] kind : player)
+                for (int square = 0; square < kind.length; square++) kind[square] = random.nextLong();
+        for (int kind = 0; kind < FLIPS.length; kind++)
+            for (int square = 0; square < FLIPS[kind].length; square++)
+                FLIPS[kind][square] = SQUARES[0][kind][square] ^ SQUARES[1][kind][square];
+        for (int player = 0; player < 2; player++) {
+            for (int count = 0; count <= MAX_INVENTORY; count++) {
+                BOMBS[player][count] = random.nextLong();
+                UNFLIPPABLES[player][count] = random.nextLong();
+            }
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a disc on a square.
+     *
+     * @param playerOne {@code true} if the disc belongs to player 1.
+     * @param kind      the disc kind.
+     * @param square    the square index.
+     * @return the key.
+     */
+    static long square(boolean playerOne, DiscKind kind, int square) {
+        return SQUARES[playerOne ? 0 : 1][kind.ordinal()][square];
+    }
+
+    /**
+     * Returns the key that moves a disc of the given kind from one owner to the other.
+     *
+     * @param kind   the disc kind.
+     * @param square the square index.
+     * @return the key to XOR into the hash when the disc is flipped.
+     */
+    static long flip(DiscKind kind, int square) {
+        return FLIPS[kind.ordinal()][square];
+    }
+
+    /**
+     * Returns the key for the number of bombs a player has left.
+     *
+     * @param playerOne {@code true} for player 1.
+     * @param count     the number of bombs left.
+     * @return the key.
+     */
+    static long bombs(boolean playerOne, int count) {
+        return BOMBS[playerOne ? 0 : 1][Math.min(count, MAX_INVENTORY)];
+    }
+
+    /**
+     * Returns the key for the number of unflippable discs a player has left.
+     *
+     * @param playerOne {@code true} for player 1.
+     * @param count     the number of unflippable discs left.
+     * @return the key.
+     */
+    static long unflippables(boolean playerOne, int count) {
+        return UNFLIPPABLES[playerOne ? 0 : 1][Math.min(count, MAX_INVENTORY)];
+    }
+
+    /**
+     * Returns the key toggled when the player to move changes.
+     *
+     * @return the side key.
+     */
+    static long side() {
+        return SIDE;
+    }
+
+    /**
+     * Computes the full hash of a position from scratch.
+     *
+     * @param player1         squares of player 1.
+     * @param player2         squares of player 2.
+     * @param bombs           squares holding bombs.
+     * @param unflippables    squares holding unflippable discs.
+     * @param playerOneToMove {@code true} if player 1 is to move.
+     * @param bombs1          bombs left to player 1.
+     * @param unflippables1   unflippable discs left to player 1.
+     * @param bombs2          bombs left to player 2.
+     * @param unflippables2   unflippable discs left to player 2.
+     * @return the hash.
+     */
+    static long hash(long player1, long player2, long bombs, long unflippables, boolean playerOneToMove,
+                     int bombs1, int unflippables1, int bombs2, int unflippables2) {
+        long hash = 0;
+        for (long s = player1 | player2; s != 0; s &= s - 1) {
+            int square = Long.numberOfTrailingZeros(s);
+            long bit = BitBoard.bit(square);
+            DiscKind kind = (bombs & bit) != 0 ? DiscKind.BOMB
+                    : (unflippables & bit) != 0 ? DiscKind.UNFLIPPABLE : DiscKind.SIMPLE;
+            hash ^= square((player1 & bit) != 0, kind, square);
+        }
+        hash ^= bombs(true, bombs1) ^ unflippables(true, unflippables1);
+        hash ^= bombs(false, bombs2) ^ unflippables(false, unflippables2);
+        if (!playerOneToMove) hash ^= SIDE;
+        return hash;
+    }
+}